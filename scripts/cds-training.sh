@@ -0,0 +1,29 @@
+#!/bin/sh
+# CDS training run of the fast-startup image (Dockerfile target fast-startup). The application is started with the
+# same AOT flag and profile as the image ENTRYPOINT: AOT fixes the bean conditions at build time, so Flyway, Hikari
+# and the Hibernate schema validation run here just as at runtime, against a throwaway PostgreSQL. The context
+# exits right after refresh and the JVM writes the loaded classes to the archive. The database and its packages
+# are removed afterwards, so nothing of them ends up in the image.
+set -eu
+
+ARCHIVE=${1:-extracted/app.jsa}
+PG_BIN=/usr/libexec/postgresql16
+PG_DATA=/tmp/cds-training-db
+
+apk add --no-cache --virtual .cds-training-db postgresql16 >/dev/null
+mkdir -p "$PG_DATA" /run/postgresql
+chown postgres:postgres "$PG_DATA" /run/postgresql
+su postgres -c "$PG_BIN/initdb -D $PG_DATA -A trust" >/dev/null
+su postgres -c "$PG_BIN/pg_ctl -D $PG_DATA -w -o '-c listen_addresses=localhost' start" >/dev/null
+su postgres -c "$PG_BIN/psql -q" <<'SQL'
+CREATE ROLE "user" LOGIN PASSWORD 'password';
+CREATE DATABASE trades OWNER "user";
+SQL
+
+SPRING_DATASOURCE_URL=jdbc:postgresql://localhost:5432/trades \
+    java -XX:ArchiveClassesAtExit="$ARCHIVE" -Dspring.context.exit=onRefresh -Dspring.aot.enabled=true \
+    -Dspring.profiles.active=fast-startup -jar extracted/app.jar
+
+su postgres -c "$PG_BIN/pg_ctl -D $PG_DATA -w -m fast stop" >/dev/null
+rm -rf "$PG_DATA" /run/postgresql
+apk del --no-cache .cds-training-db >/dev/null
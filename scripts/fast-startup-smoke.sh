@@ -0,0 +1,51 @@
+#!/bin/sh
+# Smoke check of the fast-startup image: builds it and the default image, starts each against the compose database
+# and measures the time until /actuator/health/readiness reports UP. Readiness includes the startup warm-up.
+# Fails when an image does not become ready, or when the fast-startup image takes longer than
+# FAST_STARTUP_BUDGET_MS (default 15000). Linux only: containers share the host network to reach the database.
+#
+#   ./scripts/fast-startup-smoke.sh
+set -eu
+
+FAST_STARTUP_BUDGET_MS=${FAST_STARTUP_BUDGET_MS:-15000}
+READY_TIMEOUT_MS=${READY_TIMEOUT_MS:-120000}
+READINESS_URL=http://localhost:8099/actuator/health/readiness
+DATASOURCE_URL=jdbc:postgresql://localhost:5422/trades
+
+now_ms() {
+    date +%s%3N
+}
+
+# Prints the milliseconds from container start to readiness; fails on timeout
+time_to_ready() {
+    image=$1
+    start=$(now_ms)
+    container=$(docker run -d --rm --network host -e SPRING_DATASOURCE_URL="$DATASOURCE_URL" "$image")
+    until curl -fs "$READINESS_URL" >/dev/null 2>&1; do
+        if [ $(($(now_ms) - start)) -gt "$READY_TIMEOUT_MS" ]; then
+            docker logs "$container" >&2
+            docker stop "$container" >/dev/null
+            echo "$image did not become ready within ${READY_TIMEOUT_MS} ms" >&2
+            return 1
+        fi
+        sleep 0.1
+    done
+    ready=$(($(now_ms) - start))
+    docker stop "$container" >/dev/null
+    echo "$ready"
+}
+
+docker build -q --target fast-startup -t async-spring-practice:fast-startup . >/dev/null
+docker build -q -t async-spring-practice:default . >/dev/null
+docker compose up -d --wait db
+
+default_ms=$(time_to_ready async-spring-practice:default)
+fast_startup_ms=$(time_to_ready async-spring-practice:fast-startup)
+
+echo "default:      ready in ${default_ms} ms"
+echo "fast-startup: ready in ${fast_startup_ms} ms (budget ${FAST_STARTUP_BUDGET_MS} ms)"
+
+if [ "$fast_startup_ms" -gt "$FAST_STARTUP_BUDGET_MS" ]; then
+    echo "fast-startup image missed its startup budget" >&2
+    exit 1
+fi
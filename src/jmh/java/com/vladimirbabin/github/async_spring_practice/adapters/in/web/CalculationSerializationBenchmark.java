@@ -0,0 +1,100 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.in.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.BigDecimalTradeCalculationEngine;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradeCalculator;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradePaymentTotals;
+import com.vladimirbabin.github.async_spring_practice.benchmark.SyntheticData;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Response encodings of the calculation results: the row-per-object JSON list against the columnar layout in JSON
+ * and CBOR, optionally gzipped. The payload size lands in the JMH results next to the timings as the
+ * {@code payloadBytes} and {@code operations} counters of each iteration; their ratio is the bytes per response.
+ */
+@State(Scope.Benchmark)
+public class CalculationSerializationBenchmark {
+
+    private static final int CHUNK_SIZE = 10_000;
+
+    @Param({"100000", "1000000"})
+    private int rowCount;
+
+    @Param({"row-json", "columnar-json", "columnar-cbor"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<TradeCalculationDto> calculations;
+
+    @Setup
+    public void setUp() {
+        calculations = new TradeCalculator(new BigDecimalTradeCalculationEngine()).calculate(
+                SyntheticData.trades(rowCount), TradePaymentTotals.of(SyntheticData.payments(rowCount, 10)));
+    }
+
+    @Benchmark
+    public long serialize(PayloadCounters counters) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream();
+        OutputStream output = gzip ? new GZIPOutputStream(counter, 1 << 16) : counter;
+        switch (format) {
+            case "row-json" -> objectMapper.writeValue(output, calculations);
+            case "columnar-json" -> writeColumnar(new ColumnarCalculationWriter(objectMapper.getFactory(), output));
+            case "columnar-cbor" -> writeColumnar(new ColumnarCalculationWriter(new CBORFactory(), output));
+            default -> throw new IllegalArgumentException(format);
+        }
+        output.close();
+        counters.payloadBytes += counter.count;
+        counters.operations++;
+        return counter.count;
+    }
+
+    private void writeColumnar(ColumnarCalculationWriter writer) throws IOException {
+        for (int from = 0; from < calculations.size(); from += CHUNK_SIZE) {
+            writer.writeChunk(calculations.subList(from, Math.min(from + CHUNK_SIZE, calculations.size())));
+        }
+        writer.finish();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadCounters {
+        public long payloadBytes;
+        public long operations;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            payloadBytes = 0;
+            operations = 0;
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            count += length;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.out.persistence;
+
+import com.vladimirbabin.github.async_spring_practice.benchmark.SyntheticData;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Entity to domain mapping done by {@link TradePersistenceAdapter} for every row it reads.
+ */
+@State(Scope.Benchmark)
+public class TradeMappingBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int tradeCount;
+
+    private TradePersistenceAdapter adapter;
+    private List<TradeEntity> entities;
+
+    @Setup
+    public void setUp() {
+        adapter = new TradePersistenceAdapter(null);
+        entities = SyntheticData.tradeEntities(tradeCount);
+    }
+
+    @Benchmark
+    public List<Trade> toDomain() {
+        return entities.stream()
+                .map(adapter::toDomain)
+                .collect(Collectors.toList());
+    }
+}
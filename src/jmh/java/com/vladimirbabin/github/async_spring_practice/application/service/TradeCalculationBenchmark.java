@@ -0,0 +1,78 @@
+package com.vladimirbabin.github.async_spring_practice.application.service;
+
+import com.vladimirbabin.github.async_spring_practice.adapters.out.metrics.MicrometerDashboardMetrics;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.BigDecimalTradeCalculationEngine;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.FixedPointTradeCalculationEngine;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradeCalculationCache;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradeCalculationEngine;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradeCalculator;
+import com.vladimirbabin.github.async_spring_practice.benchmark.SyntheticData;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The calculation that runs inside the {@code thenCombine} callback of
+ * {@link TradeCalculationService#getTradeCalculations()}, without the async ports around it.
+ */
+@State(Scope.Benchmark)
+public class TradeCalculationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int tradeCount;
+
+    @Param({"0", "10", "50"})
+    private int maxPaymentsPerTrade;
+
+    @Param({"big-decimal", "fixed-point"})
+    private String engine;
+
+    @Param({"false", "true"})
+    private boolean parallel;
+
+    // Every trade is cached after the first invocation, so cache=true measures the all-hits best case
+    @Param({"false", "true"})
+    private boolean cache;
+
+    private TradeCalculator calculator;
+    private TradeCalculationService service;
+    private List<Trade> trades;
+    private List<Payment> payments;
+
+    @Setup
+    public void setUp() {
+        TradeCalculationEngine calculationEngine = engine.equals("fixed-point")
+                ? new FixedPointTradeCalculationEngine()
+                : new BigDecimalTradeCalculationEngine();
+        TradeCalculationCache calculationCache = cache ? new TradeCalculationCache(tradeCount) : null;
+        calculator = parallel
+                ? new TradeCalculator(calculationEngine, new ForkJoinPool(Runtime.getRuntime().availableProcessors()), 0, 5_000,
+                        calculationCache)
+                : new TradeCalculator(calculationEngine, null, Integer.MAX_VALUE, Integer.MAX_VALUE, calculationCache);
+        service = new TradeCalculationService(null, null, calculator, null,
+                new MicrometerDashboardMetrics(new SimpleMeterRegistry()), Optional.empty(), Optional.empty());
+        trades = SyntheticData.trades(tradeCount);
+        payments = SyntheticData.payments(tradeCount, maxPaymentsPerTrade);
+    }
+
+    @TearDown
+    public void tearDown() {
+        calculator.close();
+    }
+
+    @Benchmark
+    public List<TradeCalculationDto> calculate() {
+        return service.calculate(trades, payments);
+    }
+}
@@ -0,0 +1,90 @@
+package com.vladimirbabin.github.async_spring_practice.benchmark;
+
+import com.vladimirbabin.github.async_spring_practice.adapters.out.persistence.TradeEntity;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic trade and payment generators shaped like the {@code trades} table: {@code DECIMAL(19, 2)} prices
+ * and positive {@code int} quantities.
+ */
+public final class SyntheticData {
+
+    private static final long SEED = 42L;
+
+    private SyntheticData() {
+    }
+
+    public static List<Trade> trades(int count) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        List<Trade> trades = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            long buyingPriceCents = random.nextLong(100, 1_000_000);
+            trades.add(Trade.builder()
+                    .id(id)
+                    .version(0L)
+                    .buyingAccountId(random.nextLong(1, 1_000))
+                    .vendorAccountId(random.nextLong(1, 1_000))
+                    .productName("Product " + (id % 100))
+                    .productQuantity(random.nextInt(1, 1_000))
+                    .productBuyingPrice(BigDecimal.valueOf(buyingPriceCents, 2))
+                    .productSellingPrice(BigDecimal.valueOf(buyingPriceCents + random.nextLong(1, 100_000), 2))
+                    .build());
+        }
+        return trades;
+    }
+
+    public static List<TradeEntity> tradeEntities(int count) {
+        List<TradeEntity> entities = new ArrayList<>(count);
+        for (Trade trade : trades(count)) {
+            TradeEntity entity = new TradeEntity();
+            entity.setId(trade.getId());
+            entity.setBuyingAccountId(trade.getBuyingAccountId());
+            entity.setVendorAccountId(trade.getVendorAccountId());
+            entity.setProductName(trade.getProductName());
+            entity.setProductQuantity(trade.getProductQuantity());
+            entity.setProductBuyingPrice(trade.getProductBuyingPrice());
+            entity.setProductSellingPrice(trade.getProductSellingPrice());
+            entities.add(entity);
+        }
+        return entities;
+    }
+
+    /**
+     * Between 0 and {@code maxPaymentsPerTrade} payments (uniformly) for every trade id in {@code 1..tradeCount},
+     * shuffled so that payments of one trade are not adjacent, like an unordered settlement feed.
+     */
+    public static List<Payment> payments(int tradeCount, int maxPaymentsPerTrade) {
+        SplittableRandom random = new SplittableRandom(SEED + 1);
+        LocalDate paymentDate = LocalDate.of(2024, 1, 1);
+        List<Payment> payments = new ArrayList<>();
+        long paymentId = 1;
+        for (long tradeId = 1; tradeId <= tradeCount; tradeId++) {
+            int paymentCount = maxPaymentsPerTrade == 0 ? 0 : random.nextInt(maxPaymentsPerTrade + 1);
+            for (int i = 0; i < paymentCount; i++) {
+                payments.add(Payment.builder()
+                        .id(paymentId++)
+                        .tradeId(tradeId)
+                        .type(random.nextBoolean() ? PaymentType.BUYER : PaymentType.VENDOR)
+                        .amount(BigDecimal.valueOf(random.nextLong(1, 10_000_000), 2))
+                        .currency("USD")
+                        .paymentDate(paymentDate)
+                        .build());
+            }
+        }
+        for (int i = payments.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Payment tmp = payments.get(i);
+            payments.set(i, payments.get(j));
+            payments.set(j, tmp);
+        }
+        return payments;
+    }
+}
@@ -0,0 +1,130 @@
+package com.vladimirbabin.github.async_spring_practice.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop clients: every client sends a request, waits for the whole body and immediately sends the next one,
+ * so the offered load adapts to the server instead of queueing up behind it.
+ */
+final class ClosedLoopLoad {
+
+    private static final String STALE_HEADER = "X-Data-Stale";
+    private static final String PARTIAL_HEADER = "X-Data-Partial";
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final URI uri;
+    private final Duration requestTimeout;
+
+    ClosedLoopLoad(URI uri, Duration requestTimeout) {
+        this.uri = uri;
+        this.requestTimeout = requestTimeout;
+    }
+
+    Result run(int clients, Duration duration) throws Exception {
+        long until = System.nanoTime() + duration.toNanos();
+
+        List<Future<ClientStats>> futures = new ArrayList<>(clients);
+        try (ExecutorService executor = Executors.newFixedThreadPool(clients)) {
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> runClient(until)));
+            }
+        }
+
+        ClientStats total = new ClientStats();
+        for (Future<ClientStats> future : futures) {
+            total.merge(future.get());
+        }
+        return total.toResult(duration);
+    }
+
+    private ClientStats runClient(long until) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .GET()
+                .build();
+        ClientStats stats = new ClientStats();
+        long start;
+        while ((start = System.nanoTime()) < until) {
+            boolean success;
+            boolean degraded = false;
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                success = response.statusCode() / 100 == 2;
+                degraded = response.headers().firstValue(STALE_HEADER).isPresent()
+                        || response.headers().firstValue(PARTIAL_HEADER).isPresent();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                success = false;
+            }
+            stats.record(System.nanoTime() - start, success, degraded);
+        }
+        return stats;
+    }
+
+    record Result(long requests, long errors, long degraded, double requestsPerSecond,
+                  double p50Millis, double p99Millis, double p999Millis, double maxMillis) {
+
+        double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+    }
+
+    private static final class ClientStats {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+        private long degraded;
+
+        void record(long latencyNanos, boolean success, boolean degradedResponse) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (!success) {
+                errors++;
+            }
+            if (degradedResponse) {
+                degraded++;
+            }
+        }
+
+        void merge(ClientStats other) {
+            latencies = Arrays.copyOf(latencies, count + other.count);
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            errors += other.errors;
+            degraded += other.degraded;
+        }
+
+        Result toResult(Duration duration) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return new Result(count, errors, degraded, count / (duration.toNanos() / 1e9),
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                    count == 0 ? 0 : sorted[count - 1] / 1e6);
+        }
+
+        // Nearest-rank percentile, in milliseconds
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(quantile * sorted.length);
+            return sorted[Math.max(rank, 1) - 1] / 1e6;
+        }
+    }
+}
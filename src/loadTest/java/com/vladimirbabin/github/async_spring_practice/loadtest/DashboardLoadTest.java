@@ -0,0 +1,129 @@
+package com.vladimirbabin.github.async_spring_practice.loadtest;
+
+import com.vladimirbabin.github.async_spring_practice.AsyncSpringPracticeApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application against an in-memory H2 database in PostgreSQL mode (migrated by Flyway from the regular
+ * scripts and seeded deterministically), then drives one endpoint with closed-loop clients and prints throughput,
+ * latency percentiles, error rate and heap/GC figures for the measured window. Run it with {@code ./gradlew loadTest}.
+ *
+ * <p>Server and clients share this JVM, so the heap and GC figures include the (small) client overhead. Settings are
+ * system properties, forwarded from {@code -PloadTest.*} project properties by the Gradle task.
+ */
+public final class DashboardLoadTest {
+
+    private DashboardLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int trades = Integer.getInteger("loadTest.trades", 100_000);
+        int maxPaymentsPerTrade = Integer.getInteger("loadTest.maxPaymentsPerTrade", 8);
+        int clients = Integer.getInteger("loadTest.clients", 16);
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadTest.warmupSeconds", 15));
+        Duration duration = Duration.ofSeconds(Long.getLong("loadTest.durationSeconds", 60));
+        Duration requestTimeout = Duration.ofSeconds(Long.getLong("loadTest.requestTimeoutSeconds", 30));
+        String path = System.getProperty("loadTest.path", "/api/v1/dashboards/trade-calculations");
+        String profiles = System.getProperty("loadTest.profiles", "");
+
+        try (ConfigurableApplicationContext context = start(profiles)) {
+            long seedStart = System.nanoTime();
+            long payments = new DatabaseSeeder(context.getBean(JdbcTemplate.class)).seed(trades, maxPaymentsPerTrade);
+            System.out.printf("Seeded %,d trades and %,d payments in %,d ms%n",
+                    trades, payments, (System.nanoTime() - seedStart) / 1_000_000);
+
+            URI uri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + path);
+            ClosedLoopLoad load = new ClosedLoopLoad(uri, requestTimeout);
+
+            System.out.printf("Warming up %s with %d clients for %s%n", uri, clients, warmup);
+            load.run(clients, warmup);
+
+            System.out.printf("Measuring for %s%n", duration);
+            GcSnapshot before = GcSnapshot.take();
+            resetHeapPeaks();
+            ClosedLoopLoad.Result result = load.run(clients, duration);
+            GcSnapshot gc = GcSnapshot.take().minus(before);
+
+            printReport(result, gc, duration);
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String profiles) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                        + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--payments.source=jdbc"));
+        if (!profiles.isBlank()) {
+            args.add("--spring.profiles.active=" + profiles);
+        }
+        return SpringApplication.run(AsyncSpringPracticeApplication.class, args.toArray(new String[0]));
+    }
+
+    private static void resetHeapPeaks() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static void printReport(ClosedLoopLoad.Result result, GcSnapshot gc, Duration duration) {
+        long peakHeap = 0;
+        long usedHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+                usedHeap += pool.getUsage().getUsed();
+            }
+        }
+
+        System.out.println();
+        System.out.printf("requests        %,d%n", result.requests());
+        System.out.printf("throughput      %.1f req/s%n", result.requestsPerSecond());
+        System.out.printf("latency p50     %.1f ms%n", result.p50Millis());
+        System.out.printf("latency p99     %.1f ms%n", result.p99Millis());
+        System.out.printf("latency p99.9   %.1f ms%n", result.p999Millis());
+        System.out.printf("latency max     %.1f ms%n", result.maxMillis());
+        System.out.printf("errors          %,d (%.2f%%)%n", result.errors(), result.errorRate() * 100);
+        System.out.printf("stale/partial   %,d%n", result.degraded());
+        System.out.printf("heap peak       %,d MB (sum of per-pool peaks)%n", peakHeap >> 20);
+        System.out.printf("heap used       %,d MB%n", usedHeap >> 20);
+        System.out.printf("gc              %,d collections, %,d ms (%.1f%% of wall time)%n",
+                gc.collections(), gc.timeMillis(), 100.0 * gc.timeMillis() / duration.toMillis());
+    }
+
+    private record GcSnapshot(long collections, long timeMillis) {
+
+        static GcSnapshot take() {
+            long collections = 0;
+            long timeMillis = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                collections += Math.max(collector.getCollectionCount(), 0);
+                timeMillis += Math.max(collector.getCollectionTime(), 0);
+            }
+            return new GcSnapshot(collections, timeMillis);
+        }
+
+        GcSnapshot minus(GcSnapshot other) {
+            return new GcSnapshot(collections - other.collections, timeMillis - other.timeMillis);
+        }
+    }
+}
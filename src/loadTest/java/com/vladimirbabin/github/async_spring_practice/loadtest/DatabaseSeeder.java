@@ -0,0 +1,82 @@
+package com.vladimirbabin.github.async_spring_practice.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Fills the migrated schema with a deterministic book: {@code tradeCount} trades and between 0 and
+ * {@code maxPaymentsPerTrade} payments per trade. Rows are generated and inserted batch by batch, so large volumes
+ * do not have to fit in memory twice.
+ */
+final class DatabaseSeeder {
+
+    private static final long SEED = 42L;
+    private static final int BATCH_SIZE = 5_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    DatabaseSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    long seed(int tradeCount, int maxPaymentsPerTrade) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        List<Object[]> trades = new ArrayList<>(BATCH_SIZE);
+        for (long id = 1; id <= tradeCount; id++) {
+            long buyingPriceCents = random.nextLong(100, 1_000_000);
+            trades.add(new Object[]{
+                    id,
+                    random.nextLong(1, 1_000),
+                    random.nextLong(1, 1_000),
+                    "Product " + (id % 100),
+                    random.nextInt(1, 1_000),
+                    BigDecimal.valueOf(buyingPriceCents, 2),
+                    BigDecimal.valueOf(buyingPriceCents + random.nextLong(1, 100_000), 2)
+            });
+            if (trades.size() == BATCH_SIZE) {
+                insertTrades(trades);
+            }
+        }
+        insertTrades(trades);
+
+        Date paymentDate = Date.valueOf(LocalDate.of(2024, 1, 1));
+        List<Object[]> payments = new ArrayList<>(BATCH_SIZE);
+        long paymentCount = 0;
+        for (long tradeId = 1; tradeId <= tradeCount; tradeId++) {
+            int tradePayments = maxPaymentsPerTrade == 0 ? 0 : random.nextInt(maxPaymentsPerTrade + 1);
+            for (int i = 0; i < tradePayments; i++) {
+                payments.add(new Object[]{
+                        tradeId,
+                        random.nextBoolean() ? "BUYER" : "VENDOR",
+                        BigDecimal.valueOf(random.nextLong(1, 10_000_000), 2),
+                        "USD",
+                        paymentDate
+                });
+                if (payments.size() == BATCH_SIZE) {
+                    paymentCount += insertPayments(payments);
+                }
+            }
+        }
+        return paymentCount + insertPayments(payments);
+    }
+
+    private void insertTrades(List<Object[]> trades) {
+        jdbcTemplate.batchUpdate("INSERT INTO trades (id, buying_account_id, vendor_account_id, product_name,"
+                + " product_quantity, product_buying_price, product_selling_price) VALUES (?, ?, ?, ?, ?, ?, ?)", trades);
+        trades.clear();
+    }
+
+    private int insertPayments(List<Object[]> payments) {
+        int inserted = payments.size();
+        jdbcTemplate.batchUpdate("INSERT INTO payments (trade_id, type, amount, currency, payment_date)"
+                + " VALUES (?, ?, ?, ?, ?)", payments);
+        payments.clear();
+        return inserted;
+    }
+}
@@ -3,9 +3,11 @@ package com.vladimirbabin.github.async_spring_practice;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableAsync
+@EnableScheduling
 public class AsyncSpringPracticeApplication {
 
 	public static void main(String[] args) {
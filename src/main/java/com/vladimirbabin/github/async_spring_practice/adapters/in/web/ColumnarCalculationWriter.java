@@ -0,0 +1,66 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.in.web;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Writes calculation chunks straight to the response as an array of column blocks, one block per chunk:
+ * <pre>
+ * [{"tradeId":[1,2],"grossProfit":[10.50,3],"costOfGoods":[...],"balance":[...]}, ...]
+ * </pre>
+ * Field names appear once per block instead of once per row, and every block is flushed as soon as it is written.
+ * The same layout is produced as JSON or CBOR depending on the {@link JsonFactory}.
+ */
+final class ColumnarCalculationWriter {
+
+    private final JsonGenerator generator;
+
+    ColumnarCalculationWriter(JsonFactory factory, OutputStream outputStream) throws IOException {
+        this.generator = factory.createGenerator(outputStream);
+        // The servlet container owns the response stream
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartArray();
+    }
+
+    void writeChunk(List<TradeCalculationDto> chunk) throws IOException {
+        long[] tradeIds = new long[chunk.size()];
+        for (int i = 0; i < tradeIds.length; i++) {
+            tradeIds[i] = chunk.get(i).getTradeId();
+        }
+        generator.writeStartObject();
+        generator.writeFieldName("tradeId");
+        generator.writeArray(tradeIds, 0, tradeIds.length);
+        writeDecimals("grossProfit", chunk, TradeCalculationDto::getGrossProfit);
+        writeDecimals("costOfGoods", chunk, TradeCalculationDto::getCostOfGoods);
+        writeDecimals("balance", chunk, TradeCalculationDto::getBalance);
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    // Not called on failure: the array stays open, so a client can tell a truncated response from a complete one
+    void finish() throws IOException {
+        generator.writeEndArray();
+        generator.close();
+    }
+
+    private void writeDecimals(String field, List<TradeCalculationDto> chunk,
+                               Function<TradeCalculationDto, BigDecimal> column) throws IOException {
+        generator.writeArrayFieldStart(field);
+        for (TradeCalculationDto calculation : chunk) {
+            BigDecimal value = column.apply(calculation);
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(value);
+            }
+        }
+        generator.writeEndArray();
+    }
+}
@@ -0,0 +1,27 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.in.web;
+
+import com.vladimirbabin.github.async_spring_practice.config.MonitoredExecutor;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.ExecutorStatsDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Comparator;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/executors")
+@RequiredArgsConstructor
+public class ExecutorMonitoringController {
+
+    private final List<MonitoredExecutor> executors;
+
+    @GetMapping
+    public List<ExecutorStatsDto> getExecutors() {
+        return executors.stream()
+                .map(MonitoredExecutor::getStats)
+                .sorted(Comparator.comparing(ExecutorStatsDto::getName))
+                .toList();
+    }
+}
@@ -0,0 +1,53 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.in.web;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.in.IngestPaymentsUseCase;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.PaymentIngestionResultDto;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+// Ingested payments would never be read back while payments come from the hardcoded source
+@RestController
+@ConditionalOnProperty(name = "payments.source", havingValue = "jdbc")
+@RequestMapping("/api/v1/payments")
+@RequiredArgsConstructor
+public class PaymentIngestionController {
+
+    private final IngestPaymentsUseCase ingestPaymentsUseCase;
+
+    @PostMapping("/batch")
+    public CompletableFuture<PaymentIngestionResultDto> ingestPayments(@RequestBody List<PaymentRequest> requests) {
+        List<Integer> invalidIndexes = IntStream.range(0, requests.size())
+                .filter(i -> !requests.get(i).isValid())
+                .boxed()
+                .toList();
+        if (!invalidIndexes.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid payments at indexes " + invalidIndexes
+                    + ": tradeId, type, amount (at most " + PaymentRequest.AMOUNT_SCALE + " decimals), currency ("
+                    + PaymentRequest.CURRENCY_LENGTH + " characters) and paymentDate are required");
+        }
+        List<Payment> payments = requests.stream()
+                .map(PaymentRequest::toDomain)
+                .toList();
+        return ingestPaymentsUseCase.ingestPayments(payments);
+    }
+
+    // The ingestion executor is saturated: let the feed retry instead of queueing without bound
+    @ExceptionHandler(TaskRejectedException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public void onIngestionRejected() {
+    }
+}
@@ -0,0 +1,45 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.in.web;
+
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+public class PaymentRequest {
+
+    // currency VARCHAR(3) and amount DECIMAL(19, 2) in the payments table
+    static final int CURRENCY_LENGTH = 3;
+    static final int AMOUNT_SCALE = 2;
+    static final int AMOUNT_INTEGER_DIGITS = 17;
+
+    private Long tradeId;
+    private PaymentType type;
+    private BigDecimal amount;
+    private String currency;
+    private LocalDate paymentDate;
+
+    Payment toDomain() {
+        return Payment.builder()
+                .tradeId(tradeId)
+                .type(type)
+                .amount(amount)
+                .currency(currency)
+                .paymentDate(paymentDate)
+                .build();
+    }
+
+    // Mirrors the payments columns: a value the table would reject or round fails the whole batch otherwise
+    boolean isValid() {
+        return tradeId != null && type != null && amount != null && currency != null && paymentDate != null
+                && currency.length() == CURRENCY_LENGTH
+                && hasAmountColumnPrecision();
+    }
+
+    private boolean hasAmountColumnPrecision() {
+        BigDecimal normalized = amount.stripTrailingZeros();
+        return normalized.scale() <= AMOUNT_SCALE && normalized.precision() - normalized.scale() <= AMOUNT_INTEGER_DIGITS;
+    }
+}
@@ -0,0 +1,45 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.in.web;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.in.ReactiveTradeCalculationUseCase;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+/**
+ * NDJSON stream backed by the R2DBC pipeline. No thread waits on the database while the response is written:
+ * the request thread is released right away and elements are written as the Flux emits them.
+ * <p>
+ * The R2DBC pipeline always walks the whole book, so trade filters are rejected rather than ignored.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1/dashboards/reactive")
+@RequiredArgsConstructor
+public class ReactiveTradeDashboardController {
+
+    private static final int MAX_CHUNK_SIZE = 10_000;
+
+    private final ReactiveTradeCalculationUseCase reactiveTradeCalculationUseCase;
+
+    @GetMapping(value = "/trade-calculations", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<TradeCalculationDto> streamTradeCalculations(@RequestParam(defaultValue = "1000") int chunkSize,
+                                                             TradeCriteriaRequest criteria) {
+        if (chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Chunk size must be between 1 and " + MAX_CHUNK_SIZE);
+        }
+        if (!criteria.toDomain().matchesAll()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Trade filters are not supported here; use /api/v1/dashboards/trade-calculations/stream");
+        }
+        return reactiveTradeCalculationUseCase.streamTradeCalculations(chunkSize);
+    }
+}
@@ -0,0 +1,37 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.in.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.DashboardMetricsPort;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * CBOR counterpart of {@link TimedMappingJackson2HttpMessageConverter}.
+ */
+public class TimedMappingJackson2CborHttpMessageConverter extends MappingJackson2CborHttpMessageConverter {
+
+    private final DashboardMetricsPort dashboardMetrics;
+
+    public TimedMappingJackson2CborHttpMessageConverter(ObjectMapper objectMapper, DashboardMetricsPort dashboardMetrics) {
+        super(objectMapper);
+        this.dashboardMetrics = dashboardMetrics;
+    }
+
+    @Override
+    protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (!TimedMappingJackson2HttpMessageConverter.isDashboardPayload(object, type)) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            dashboardMetrics.recordSerialization("cbor", System.nanoTime() - start);
+        }
+    }
+}
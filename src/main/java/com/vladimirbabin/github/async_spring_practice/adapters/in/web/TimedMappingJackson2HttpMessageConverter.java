@@ -0,0 +1,58 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.in.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.DashboardMetricsPort;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationPageDto;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Jackson converter that records how long writing a dashboard response body (trade calculations, whole or paged)
+ * takes; other bodies such as ingestion results or error details are written untimed. The time includes pushing
+ * the bytes into the response buffer, so a slow client shows up here once the buffer is full.
+ */
+public class TimedMappingJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final DashboardMetricsPort dashboardMetrics;
+
+    public TimedMappingJackson2HttpMessageConverter(ObjectMapper objectMapper, DashboardMetricsPort dashboardMetrics) {
+        super(objectMapper);
+        this.dashboardMetrics = dashboardMetrics;
+    }
+
+    @Override
+    protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (!isDashboardPayload(object, type)) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            dashboardMetrics.recordSerialization("json", System.nanoTime() - start);
+        }
+    }
+
+    // The declared type decides when there is one, so an empty calculation list is timed too
+    static boolean isDashboardPayload(Object body, @Nullable Type type) {
+        if (body instanceof TradeCalculationPageDto) {
+            return true;
+        }
+        if (!(body instanceof List<?> list)) {
+            return false;
+        }
+        Class<?> elementType = type != null ? ResolvableType.forType(type).asCollection().resolveGeneric(0) : null;
+        if (elementType != null) {
+            return TradeCalculationDto.class.isAssignableFrom(elementType);
+        }
+        return !list.isEmpty() && list.get(0) instanceof TradeCalculationDto;
+    }
+}
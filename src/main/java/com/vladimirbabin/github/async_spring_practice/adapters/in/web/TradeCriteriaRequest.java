@@ -0,0 +1,28 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.in.web;
+
+import com.vladimirbabin.github.async_spring_practice.domain.model.TradeCriteria;
+import lombok.Data;
+
+// Optional query parameters of the trade calculation endpoints
+@Data
+public class TradeCriteriaRequest {
+    private Long buyingAccountId;
+    private Long vendorAccountId;
+    private String productName;
+    private Long fromTradeId;
+    private Long toTradeId;
+
+    TradeCriteria toDomain() {
+        return TradeCriteria.builder()
+                .buyingAccountId(buyingAccountId)
+                .vendorAccountId(vendorAccountId)
+                .productName(productName)
+                .fromTradeId(fromTradeId)
+                .toTradeId(toTradeId)
+                .build();
+    }
+
+    boolean isValid() {
+        return fromTradeId == null || toTradeId == null || fromTradeId <= toTradeId;
+    }
+}
@@ -1,27 +1,247 @@
 package com.vladimirbabin.github.async_spring_practice.adapters.in.web;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.vladimirbabin.github.async_spring_practice.application.ports.in.TradeCalculationUseCase;
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.DashboardMetricsPort;
+import com.vladimirbabin.github.async_spring_practice.application.service.resilience.BulkheadFullException;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.CalculationCacheStatsDto;
 import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationPageDto;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationsResultDto;
+import com.vladimirbabin.github.async_spring_practice.domain.model.TradeCriteria;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/v1/dashboards")
 @RequiredArgsConstructor
 public class TradeDashboardController {
 
+    private static final int MAX_PAGE_SIZE = 10_000;
+    private static final CBORFactory CBOR_FACTORY = new CBORFactory();
+    static final String STALE_HEADER = "X-Data-Stale";
+    static final String PARTIAL_HEADER = "X-Data-Partial";
+
     private final TradeCalculationUseCase tradeCalculationUseCase;
+    private final ObjectMapper objectMapper;
+    private final DashboardMetricsPort dashboardMetrics;
+
+    // JSON and CBOR bodies are different representations: each gets its own ETag, and caches key them by Accept
+    @GetMapping(value = "/trade-calculations",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public CompletableFuture<ResponseEntity<List<TradeCalculationDto>>> getTradeCalculations(
+            TradeCriteriaRequest criteria,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        validateCriteria(criteria);
+        TradeCriteria tradeCriteria = criteria.toDomain();
+        boolean cbor = prefersCbor(accept);
+        if (!tradeCriteria.matchesAll()) {
+            return tradeCalculationUseCase.getTradeCalculations(tradeCriteria)
+                    .thenApply(calculations -> representation(ResponseEntity.ok(), cbor).body(calculations));
+        }
+        if (ifNoneMatch == null) {
+            return tradeCalculationUseCase.getTradeCalculations().thenApply(result -> toResponse(result, cbor));
+        }
+        // Polling clients that already hold the current version skip the fetch and the calculation entirely
+        return tradeCalculationUseCase.getDataVersion()
+                .handle((dataVersion, failure) -> dataVersion)
+                .thenCompose(dataVersion -> dataVersion != null && matches(ifNoneMatch, toETag(dataVersion, cbor))
+                        ? CompletableFuture.completedFuture(notModified(dataVersion, cbor))
+                        : tradeCalculationUseCase.getTradeCalculations().thenApply(result -> toResponse(result, cbor)));
+    }
+
+    @GetMapping(value = "/trade-calculations", params = "limit")
+    public CompletableFuture<TradeCalculationPageDto> getTradeCalculationsPage(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam int limit,
+            TradeCriteriaRequest criteria) {
+        validatePageSize(limit);
+        validateCriteria(criteria);
+        TradeCriteria tradeCriteria = criteria.toDomain();
+        return tradeCriteria.matchesAll()
+                ? tradeCalculationUseCase.getTradeCalculationsPage(after, limit)
+                : tradeCalculationUseCase.getTradeCalculationsPage(tradeCriteria, after, limit);
+    }
+
+    @GetMapping("/trade-calculations/stream")
+    public ResponseEntity<StreamingResponseBody> streamTradeCalculations(
+            @RequestParam(defaultValue = "1000") int chunkSize,
+            TradeCriteriaRequest criteria) {
+        validatePageSize(chunkSize);
+        validateCriteria(criteria);
+        TradeCriteria tradeCriteria = criteria.toDomain();
+        StreamingResponseBody body = outputStream -> stream(tradeCriteria, chunkSize,
+                chunk -> writeNdjson(outputStream, chunk));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // One handler for both encodings: JSON unless the client prefers CBOR, also without an Accept header or with */*
+    @GetMapping(value = "/trade-calculations/columnar",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<StreamingResponseBody> streamColumnar(
+            @RequestParam(defaultValue = "10000") int chunkSize,
+            TradeCriteriaRequest criteria,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return prefersCbor(accept)
+                ? streamColumnar(chunkSize, criteria, CBOR_FACTORY, MediaType.APPLICATION_CBOR, "columnar-cbor")
+                : streamColumnar(chunkSize, criteria, objectMapper.getFactory(), MediaType.APPLICATION_JSON, "columnar-json");
+    }
+
+    @GetMapping("/trade-calculations/cache")
+    public CalculationCacheStatsDto getCacheStats() {
+        return tradeCalculationUseCase.getCacheStats();
+    }
+
+    @ExceptionHandler({TimeoutException.class, BulkheadFullException.class})
+    public ResponseEntity<String> handleUnavailablePort(Exception e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+    }
+
+    private ResponseEntity<List<TradeCalculationDto>> toResponse(TradeCalculationsResultDto result, boolean cbor) {
+        ResponseEntity.BodyBuilder response = representation(ResponseEntity.ok(), cbor);
+        if (result.getCalculatedAt() != null) {
+            response.lastModified(result.getCalculatedAt());
+        }
+        if (result.getDataVersion() != null) {
+            response.eTag(toETag(result.getDataVersion(), cbor));
+        }
+        if (result.isStale()) {
+            response.header(STALE_HEADER, "true");
+        }
+        if (result.isPartial()) {
+            response.header(PARTIAL_HEADER, "true");
+        }
+        return response.body(result.getCalculations());
+    }
+
+    private ResponseEntity<List<TradeCalculationDto>> notModified(long dataVersion, boolean cbor) {
+        return representation(ResponseEntity.status(HttpStatus.NOT_MODIFIED), cbor)
+                .eTag(toETag(dataVersion, cbor))
+                .build();
+    }
 
-    // TODO: add endpoint that checks which executors run or not. I.e. put threads into map and return. Easier with beans. Define thread name prefixes.
-    // Which threads are active, what kind of threads are blocking?
+    private static ResponseEntity.BodyBuilder representation(ResponseEntity.BodyBuilder response, boolean cbor) {
+        return response.contentType(cbor ? MediaType.APPLICATION_CBOR : MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT);
+    }
+
+    static String toETag(long dataVersion, boolean cbor) {
+        return "\"" + Long.toHexString(dataVersion) + (cbor ? "-cbor" : "") + "\"";
+    }
+
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamColumnar(int chunkSize, TradeCriteriaRequest criteria,
+                                                                 JsonFactory factory, MediaType mediaType,
+                                                                 String format) {
+        validatePageSize(chunkSize);
+        validateCriteria(criteria);
+        TradeCriteria tradeCriteria = criteria.toDomain();
+        StreamingResponseBody body = outputStream -> {
+            ColumnarCalculationWriter writer = new ColumnarCalculationWriter(factory, outputStream);
+            stream(tradeCriteria, chunkSize, chunk -> {
+                long start = System.nanoTime();
+                try {
+                    writer.writeChunk(chunk);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    dashboardMetrics.recordSerialization(format, System.nanoTime() - start);
+                }
+            });
+            writer.finish();
+        };
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .body(body);
+    }
+
+    private static boolean prefersCbor(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+        return quality(accepted, MediaType.APPLICATION_CBOR) > quality(accepted, MediaType.APPLICATION_JSON);
+    }
+
+    private static double quality(List<MediaType> accepted, MediaType mediaType) {
+        double quality = 0;
+        for (MediaType candidate : accepted) {
+            if (candidate.includes(mediaType)) {
+                quality = Math.max(quality, candidate.getQualityValue());
+            }
+        }
+        return quality;
+    }
+
+    private void stream(TradeCriteria criteria, int chunkSize, Consumer<List<TradeCalculationDto>> chunkConsumer) {
+        if (criteria.matchesAll()) {
+            tradeCalculationUseCase.streamTradeCalculations(chunkSize, chunkConsumer);
+        } else {
+            tradeCalculationUseCase.streamTradeCalculations(criteria, chunkSize, chunkConsumer);
+        }
+    }
+
+    private void writeNdjson(OutputStream outputStream, List<TradeCalculationDto> chunk) {
+        long start = System.nanoTime();
+        try {
+            for (TradeCalculationDto calculation : chunk) {
+                outputStream.write(objectMapper.writeValueAsBytes(calculation));
+                outputStream.write('\n');
+            }
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            dashboardMetrics.recordSerialization("ndjson", System.nanoTime() - start);
+        }
+    }
+
+    private static void validateCriteria(TradeCriteriaRequest criteria) {
+        if (!criteria.isValid()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "fromTradeId must not be greater than toTradeId");
+        }
+    }
 
-    @GetMapping("/trade-calculations")
-    public CompletableFuture<List<TradeCalculationDto>> getTradeCalculations() {
-        return tradeCalculationUseCase.getTradeCalculations();
+    private void validatePageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
     }
 }
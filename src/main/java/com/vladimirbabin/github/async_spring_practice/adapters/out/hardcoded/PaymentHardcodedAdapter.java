@@ -1,78 +1,115 @@
 package com.vladimirbabin.github.async_spring_practice.adapters.out.hardcoded;
 
 import com.vladimirbabin.github.async_spring_practice.application.ports.out.GetPaymentsPort;
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.StreamPaymentsPort;
+import com.vladimirbabin.github.async_spring_practice.config.AsyncExecutorConfig;
 import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
 import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 @Component
-public class PaymentHardcodedAdapter implements GetPaymentsPort {
+@ConditionalOnProperty(name = "payments.source", havingValue = "hardcoded", matchIfMissing = true)
+public class PaymentHardcodedAdapter implements GetPaymentsPort, StreamPaymentsPort {
 
-    @Async
+    @Async(AsyncExecutorConfig.PAYMENTS_EXECUTOR)
     @Override
     public CompletableFuture<List<Payment>> getAllPayments() {
+        return CompletableFuture.completedFuture(generatePayments());
+    }
+
+    @Async(AsyncExecutorConfig.PAYMENTS_EXECUTOR)
+    @Override
+    public CompletableFuture<List<Payment>> getPaymentsByTradeIds(Collection<Long> tradeIds) {
+        Set<Long> ids = new HashSet<>(tradeIds);
         return CompletableFuture.completedFuture(
-                LongStream.rangeClosed(1, 10)
-                        .boxed()
-                        .flatMap(tradeId -> {
-                            LocalDate paymentDate = LocalDate.now().minusDays(tradeId);
-                            return Stream.of(
-                                    // Positive balance
-                                    Payment.builder().id(tradeId * 2 - 1).tradeId(tradeId)
-                                            .type(PaymentType.BUYER)
-                                            .amount(BigDecimal.valueOf(1500))
-                                            .currency("USD")
-                                            .paymentDate(paymentDate)
-                                            .build(),
-                                    Payment.builder()
-                                            .id(tradeId * 2)
-                                            .tradeId(tradeId)
-                                            .type(PaymentType.VENDOR)
-                                            .amount(BigDecimal.valueOf(1000))
-                                            .currency("USD")
-                                            .paymentDate(paymentDate).build(),
-                                    // Negative balance
-                                    Payment.builder()
-                                            .id(tradeId * 2 - 1)
-                                            .tradeId(tradeId + 10)
-                                            .type(PaymentType.BUYER)
-                                            .amount(BigDecimal.valueOf(1000))
-                                            .currency("USD")
-                                            .paymentDate(paymentDate).build(),
-                                    Payment.builder()
-                                            .id(tradeId * 2)
-                                            .tradeId(tradeId + 10)
-                                            .type(PaymentType.VENDOR)
-                                            .amount(BigDecimal.valueOf(1500))
-                                            .currency("USD")
-                                            .paymentDate(paymentDate).build(),
-                                    // Zero balance
-                                    Payment.builder()
-                                            .id(tradeId * 2 - 1)
-                                            .tradeId(tradeId + 20)
-                                            .type(PaymentType.BUYER)
-                                            .amount(BigDecimal.valueOf(1000))
-                                            .currency("USD")
-                                            .paymentDate(paymentDate).build(),
-                                    Payment.builder()
-                                            .id(tradeId * 2)
-                                            .tradeId(tradeId + 20)
-                                            .type(PaymentType.VENDOR)
-                                            .amount(BigDecimal.valueOf(1000))
-                                            .currency("USD")
-                                            .paymentDate(paymentDate).build()
-                            );
-                        })
+                generatePayments().stream()
+                        .filter(payment -> ids.contains(payment.getTradeId()))
                         .collect(Collectors.toList())
         );
     }
+
+    // The generated payments never change
+    @Override
+    public CompletableFuture<Long> getPaymentsVersion() {
+        return CompletableFuture.completedFuture(0L);
+    }
+
+    @Override
+    public boolean isSortedByTradeId() {
+        return false;
+    }
+
+    @Override
+    public void forEachPayment(Consumer<Payment> consumer) {
+        generatePayments().forEach(consumer);
+    }
+
+    private List<Payment> generatePayments() {
+        return LongStream.rangeClosed(1, 10)
+                .boxed()
+                .flatMap(tradeId -> {
+                    LocalDate paymentDate = LocalDate.now().minusDays(tradeId);
+                    return Stream.of(
+                            // Positive balance
+                            Payment.builder().id(tradeId * 2 - 1).tradeId(tradeId)
+                                    .type(PaymentType.BUYER)
+                                    .amount(BigDecimal.valueOf(1500))
+                                    .currency("USD")
+                                    .paymentDate(paymentDate)
+                                    .build(),
+                            Payment.builder()
+                                    .id(tradeId * 2)
+                                    .tradeId(tradeId)
+                                    .type(PaymentType.VENDOR)
+                                    .amount(BigDecimal.valueOf(1000))
+                                    .currency("USD")
+                                    .paymentDate(paymentDate).build(),
+                            // Negative balance
+                            Payment.builder()
+                                    .id(tradeId * 2 - 1)
+                                    .tradeId(tradeId + 10)
+                                    .type(PaymentType.BUYER)
+                                    .amount(BigDecimal.valueOf(1000))
+                                    .currency("USD")
+                                    .paymentDate(paymentDate).build(),
+                            Payment.builder()
+                                    .id(tradeId * 2)
+                                    .tradeId(tradeId + 10)
+                                    .type(PaymentType.VENDOR)
+                                    .amount(BigDecimal.valueOf(1500))
+                                    .currency("USD")
+                                    .paymentDate(paymentDate).build(),
+                            // Zero balance
+                            Payment.builder()
+                                    .id(tradeId * 2 - 1)
+                                    .tradeId(tradeId + 20)
+                                    .type(PaymentType.BUYER)
+                                    .amount(BigDecimal.valueOf(1000))
+                                    .currency("USD")
+                                    .paymentDate(paymentDate).build(),
+                            Payment.builder()
+                                    .id(tradeId * 2)
+                                    .tradeId(tradeId + 20)
+                                    .type(PaymentType.VENDOR)
+                                    .amount(BigDecimal.valueOf(1000))
+                                    .currency("USD")
+                                    .paymentDate(paymentDate).build()
+                    );
+                })
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,33 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.out.hardcoded;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.GetPaymentsPort;
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.ReactiveGetPaymentsPort;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Exposes the hardcoded payments to the reactive pipeline; the generation itself still runs on the payments
+ * executor.
+ */
+@Component
+@Profile("reactive")
+@ConditionalOnProperty(name = "payments.source", havingValue = "hardcoded", matchIfMissing = true)
+@RequiredArgsConstructor
+public class PaymentHardcodedReactiveAdapter implements ReactiveGetPaymentsPort {
+
+    private final GetPaymentsPort getPaymentsPort;
+
+    @Override
+    public Flux<Payment> getPaymentsByTradeIds(Collection<Long> tradeIds) {
+        return Mono.fromFuture(() -> getPaymentsPort.getPaymentsByTradeIds(tradeIds))
+                .flatMapIterable(Function.identity());
+    }
+}
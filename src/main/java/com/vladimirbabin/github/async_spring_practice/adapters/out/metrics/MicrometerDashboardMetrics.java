@@ -0,0 +1,90 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.out.metrics;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.DashboardMetricsPort;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Timers for every stage of the dashboard pipeline (port fetches, payment grouping, calculation, serialization)
+ * and gauges for the size of the last full calculation. Timers publish p50/p95/p99 plus a histogram, so the
+ * percentiles can also be aggregated across instances in Prometheus.
+ */
+@Component
+public class MicrometerDashboardMetrics implements DashboardMetricsPort {
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry registry;
+    private final Timer paymentGroupingTimer;
+    private final Timer calculationTimer;
+    private final AtomicLong tradeRows = new AtomicLong();
+    private final AtomicLong paymentRows = new AtomicLong();
+
+    public MicrometerDashboardMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.paymentGroupingTimer = timer("dashboard.payments.grouping").register(registry);
+        this.calculationTimer = timer("dashboard.calculation").register(registry);
+
+        Gauge.builder("dashboard.trades.rows", tradeRows, AtomicLong::get)
+                .description("Trades in the last full calculation")
+                .register(registry);
+        Gauge.builder("dashboard.payments.rows", paymentRows, AtomicLong::get)
+                .description("Payments in the last full calculation")
+                .register(registry);
+        Gauge.builder("dashboard.payments.per.trade", this, MicrometerDashboardMetrics::paymentsPerTrade)
+                .description("Average payments per trade in the last full calculation")
+                .register(registry);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> timeFetch(String port, String query, Supplier<CompletableFuture<T>> call) {
+        Timer.Sample sample = Timer.start(registry);
+        return call.get().whenComplete((result, failure) -> sample.stop(timer("dashboard.port.fetch")
+                .tag("port", port)
+                .tag("query", query)
+                .tag("outcome", failure == null ? "success" : "error")
+                .register(registry)));
+    }
+
+    @Override
+    public <T> T timePaymentGrouping(Supplier<T> grouping) {
+        return paymentGroupingTimer.record(grouping);
+    }
+
+    @Override
+    public <T> T timeCalculation(Supplier<T> calculation) {
+        return calculationTimer.record(calculation);
+    }
+
+    @Override
+    public void recordSerialization(String format, long nanos) {
+        timer("dashboard.serialization")
+                .tag("format", format)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordRows(int trades, int payments) {
+        tradeRows.set(trades);
+        paymentRows.set(payments);
+    }
+
+    private double paymentsPerTrade() {
+        long trades = tradeRows.get();
+        return trades == 0 ? 0 : (double) paymentRows.get() / trades;
+    }
+
+    private static Timer.Builder timer(String name) {
+        return Timer.builder(name)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram();
+    }
+}
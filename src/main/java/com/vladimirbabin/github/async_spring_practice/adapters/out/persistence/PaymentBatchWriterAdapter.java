@@ -0,0 +1,69 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.out.persistence;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.SavePaymentsPort;
+import com.vladimirbabin.github.async_spring_practice.config.AsyncExecutorConfig;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.DatabaseMetaData;
+import java.sql.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Inserts payments with JDBC batches of {@code payments.ingestion.batch-size} rows. Together with
+ * {@code reWriteBatchedInserts=true} on the JDBC URL the PostgreSQL driver sends each batch as multi-row
+ * INSERTs. Runs on its own executor so bursts from the settlement feed never queue behind dashboard reads.
+ * <p>
+ * On PostgreSQL every batch takes a transaction-level advisory lock, so payment ids become visible in id order
+ * whichever balances source this replica runs: the materialized balances of any replica tail the table by id.
+ * Enabled with {@code payments.source=jdbc}, like the adapter reading the table back.
+ */
+@Component
+@ConditionalOnProperty(name = "payments.source", havingValue = "jdbc")
+public class PaymentBatchWriterAdapter implements SavePaymentsPort {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO payments (trade_id, type, amount, currency, payment_date) VALUES (?, ?, ?, ?, ?)";
+
+    // Arbitrary application-wide key of the transaction-level advisory lock serializing payment inserts
+    private static final long ORDERED_COMMITS_LOCK = 0x7061796D656E7473L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final boolean orderedCommits;
+
+    public PaymentBatchWriterAdapter(JdbcTemplate jdbcTemplate,
+                                     @Value("${payments.ingestion.batch-size:5000}") int batchSize) throws MetaDataAccessException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        // Advisory locks are PostgreSQL-specific; the H2 load test seeds its payments single-threaded
+        this.orderedCommits = "PostgreSQL".equals(JdbcUtils.commonDatabaseName(JdbcUtils.extractDatabaseMetaData(
+                jdbcTemplate.getDataSource(), DatabaseMetaData::getDatabaseProductName)));
+    }
+
+    @Async(AsyncExecutorConfig.INGESTION_EXECUTOR)
+    @Transactional
+    @Override
+    public CompletableFuture<Integer> savePayments(List<Payment> payments) {
+        if (orderedCommits) {
+            jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + ORDERED_COMMITS_LOCK + ")");
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, payments, batchSize, (statement, payment) -> {
+            statement.setLong(1, payment.getTradeId());
+            statement.setString(2, payment.getType().name());
+            statement.setBigDecimal(3, payment.getAmount());
+            statement.setString(4, payment.getCurrency());
+            statement.setDate(5, Date.valueOf(payment.getPaymentDate()));
+        });
+        // Rewritten batches report SUCCESS_NO_INFO instead of per-row counts
+        return CompletableFuture.completedFuture(payments.size());
+    }
+}
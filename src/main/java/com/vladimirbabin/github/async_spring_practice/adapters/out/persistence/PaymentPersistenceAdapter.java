@@ -0,0 +1,99 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.out.persistence;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.GetPaymentsPort;
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.PaymentEventsPort;
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.StreamPaymentsPort;
+import com.vladimirbabin.github.async_spring_practice.config.AsyncExecutorConfig;
+import com.vladimirbabin.github.async_spring_practice.domain.model.DataVersionStamp;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Reads payments from the {@code payments} table. Enabled with {@code payments.source=jdbc}.
+ */
+@Component
+@ConditionalOnProperty(name = "payments.source", havingValue = "jdbc")
+public class PaymentPersistenceAdapter implements GetPaymentsPort, StreamPaymentsPort, PaymentEventsPort {
+
+    private static final String SELECT = "SELECT id, trade_id, type, amount, currency, payment_date FROM payments";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+
+    public PaymentPersistenceAdapter(JdbcTemplate jdbcTemplate,
+                                     @Value("${payments.jdbc.fetch-size:10000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+    }
+
+    @Async(AsyncExecutorConfig.PAYMENTS_EXECUTOR)
+    @Override
+    public CompletableFuture<List<Payment>> getAllPayments() {
+        return CompletableFuture.completedFuture(
+                StreamingJdbcQuery.query(jdbcTemplate, SELECT, fetchSize, statement -> { }, this::toDomain));
+    }
+
+    @Async(AsyncExecutorConfig.PAYMENTS_EXECUTOR)
+    @Override
+    public CompletableFuture<List<Payment>> getPaymentsByTradeIds(Collection<Long> tradeIds) {
+        return CompletableFuture.completedFuture(
+                StreamingJdbcQuery.query(jdbcTemplate, SELECT + " WHERE trade_id = ANY (?)", fetchSize,
+                        statement -> statement.setArray(1, statement.getConnection().createArrayOf("bigint", tradeIds.toArray(new Long[0]))),
+                        this::toDomain));
+    }
+
+    // Payments are append-only, so count and max id are enough
+    @Async(AsyncExecutorConfig.PAYMENTS_EXECUTOR)
+    @Override
+    public CompletableFuture<Long> getPaymentsVersion() {
+        return CompletableFuture.completedFuture(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*), COALESCE(MAX(id), 0) FROM payments",
+                (resultSet, rowNum) -> DataVersionStamp.of(resultSet.getLong(1), resultSet.getLong(2))));
+    }
+
+    @Override
+    public boolean isSortedByTradeId() {
+        return true;
+    }
+
+    // Served by idx_payments_trade_id; the connection stays open until the consumer has seen every payment
+    @Override
+    public void forEachPayment(Consumer<Payment> consumer) {
+        StreamingJdbcQuery.forEach(jdbcTemplate, SELECT + " ORDER BY trade_id", fetchSize, statement -> { },
+                resultSet -> consumer.accept(toDomain(resultSet, 0)));
+    }
+
+    // Served by the primary key; called by the materialized balances on their own scheduler thread
+    @Override
+    public List<Payment> getPaymentsAfter(long afterPaymentId, int limit) {
+        return StreamingJdbcQuery.query(jdbcTemplate, SELECT + " WHERE id > ? ORDER BY id LIMIT ?", fetchSize,
+                statement -> {
+                    statement.setLong(1, afterPaymentId);
+                    statement.setInt(2, limit);
+                },
+                this::toDomain);
+    }
+
+    private Payment toDomain(ResultSet resultSet, int rowNum) throws SQLException {
+        return Payment.builder()
+                .id(resultSet.getLong(1))
+                .tradeId(resultSet.getLong(2))
+                .type(PaymentType.valueOf(resultSet.getString(3)))
+                .amount(resultSet.getBigDecimal(4))
+                .currency(resultSet.getString(5))
+                .paymentDate(resultSet.getDate(6).toLocalDate())
+                .build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.out.persistence;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.ReactiveGetPaymentsPort;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Reads payments from the {@code payments} table over R2DBC. Enabled in the reactive profile with
+ * {@code payments.source=jdbc}.
+ */
+@Component
+@Profile("reactive")
+@ConditionalOnProperty(name = "payments.source", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class PaymentR2dbcAdapter implements ReactiveGetPaymentsPort {
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Flux<Payment> getPaymentsByTradeIds(Collection<Long> tradeIds) {
+        return databaseClient.sql("SELECT id, trade_id, type, amount, currency, payment_date FROM payments"
+                        + " WHERE trade_id = ANY (:tradeIds)")
+                .bind("tradeIds", tradeIds.toArray(new Long[0]))
+                .map(PaymentR2dbcAdapter::toDomain)
+                .all();
+    }
+
+    private static Payment toDomain(Readable row) {
+        return Payment.builder()
+                .id(row.get(0, Long.class))
+                .tradeId(row.get(1, Long.class))
+                .type(PaymentType.valueOf(row.get(2, String.class)))
+                .amount(row.get(3, BigDecimal.class))
+                .currency(row.get(4, String.class))
+                .paymentDate(row.get(5, LocalDate.class))
+                .build();
+    }
+}
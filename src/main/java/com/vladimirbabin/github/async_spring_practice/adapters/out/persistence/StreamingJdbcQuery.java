@@ -0,0 +1,52 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.out.persistence;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a read-only query that streams rows from the database {@code fetchSize} at a time instead of
+ * buffering the whole result set in the driver.
+ */
+final class StreamingJdbcQuery {
+
+    private StreamingJdbcQuery() {
+    }
+
+    static <T> List<T> query(JdbcTemplate jdbcTemplate, String sql, int fetchSize,
+                             PreparedStatementSetter parameters, RowMapper<T> rowMapper) {
+        List<T> rows = new ArrayList<>();
+        forEach(jdbcTemplate, sql, fetchSize, parameters, resultSet -> rows.add(rowMapper.mapRow(resultSet, rows.size())));
+        return rows;
+    }
+
+    static void forEach(JdbcTemplate jdbcTemplate, String sql, int fetchSize,
+                        PreparedStatementSetter parameters, RowCallbackHandler rowHandler) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            // The PostgreSQL driver only streams with a cursor (honours the fetch size) outside auto-commit
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setFetchSize(fetchSize);
+                parameters.setValues(statement);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        rowHandler.processRow(resultSet);
+                    }
+                }
+                return null;
+            } finally {
+                // Read-only, nothing to commit
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+}
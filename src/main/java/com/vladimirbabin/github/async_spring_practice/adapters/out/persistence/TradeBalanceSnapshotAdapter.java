@@ -0,0 +1,98 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.out.persistence;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.TradeBalanceSnapshotPort;
+import com.vladimirbabin.github.async_spring_practice.domain.model.TradeBalance;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Stores the materialized balances in {@code trade_balances} with the id of the last payment they include in
+ * {@code trade_balances_watermark}. Only the balances changed since the previous snapshot are written. Replicas
+ * share the tables: the watermark row is locked while writing and a snapshot older than the stored one is
+ * discarded, so the tables always hold the balances as of the stored watermark.
+ */
+@Component
+@ConditionalOnProperty(name = "trade-calculation.balances.source", havingValue = "materialized")
+public class TradeBalanceSnapshotAdapter implements TradeBalanceSnapshotPort {
+
+    private static final String SELECT_WATERMARK = "SELECT last_payment_id FROM trade_balances_watermark WHERE id = 1";
+    private static final String SELECT_BALANCES =
+            "SELECT trade_id, buyer_total, vendor_total, payments_version FROM trade_balances";
+    private static final String UPSERT_BALANCE = """
+            INSERT INTO trade_balances (trade_id, buyer_total, vendor_total, payments_version) VALUES (?, ?, ?, ?)
+            ON CONFLICT (trade_id) DO UPDATE SET buyer_total = EXCLUDED.buyer_total,
+                vendor_total = EXCLUDED.vendor_total, payments_version = EXCLUDED.payments_version""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public TradeBalanceSnapshotAdapter(JdbcTemplate jdbcTemplate,
+                                       @Value("${payments.ingestion.batch-size:5000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    // Watermark and balances are read in one repeatable-read transaction so a concurrent snapshot cannot split them
+    @Override
+    public long loadSnapshot(Consumer<TradeBalance> consumer) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            int isolation = connection.getTransactionIsolation();
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try {
+                long lastPaymentId;
+                try (PreparedStatement statement = connection.prepareStatement(SELECT_WATERMARK);
+                     ResultSet resultSet = statement.executeQuery()) {
+                    lastPaymentId = resultSet.next() ? resultSet.getLong(1) : 0;
+                }
+                try (PreparedStatement statement = connection.prepareStatement(SELECT_BALANCES)) {
+                    statement.setFetchSize(batchSize);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            consumer.accept(TradeBalance.builder()
+                                    .tradeId(resultSet.getLong(1))
+                                    .buyerTotal(resultSet.getBigDecimal(2))
+                                    .vendorTotal(resultSet.getBigDecimal(3))
+                                    .paymentsVersion(resultSet.getLong(4))
+                                    .build());
+                        }
+                    }
+                }
+                return lastPaymentId;
+            } finally {
+                // Read-only, nothing to commit
+                connection.rollback();
+                connection.setTransactionIsolation(isolation);
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    @Transactional
+    @Override
+    public boolean saveSnapshot(Collection<TradeBalance> balances, long lastPaymentId) {
+        Long storedLastPaymentId = jdbcTemplate.queryForObject(SELECT_WATERMARK + " FOR UPDATE", Long.class);
+        if (storedLastPaymentId != null && storedLastPaymentId >= lastPaymentId) {
+            return false;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_BALANCE, balances, batchSize, (statement, balance) -> {
+            statement.setLong(1, balance.getTradeId());
+            statement.setBigDecimal(2, balance.getBuyerTotal());
+            statement.setBigDecimal(3, balance.getVendorTotal());
+            statement.setLong(4, balance.getPaymentsVersion());
+        });
+        jdbcTemplate.update("UPDATE trade_balances_watermark SET last_payment_id = ? WHERE id = 1", lastPaymentId);
+        return true;
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -25,5 +26,7 @@ public class TradeEntity {
     private int productQuantity;
     private BigDecimal productBuyingPrice;
     private BigDecimal productSellingPrice;
+    @Version
+    private Long version;
 
 }
@@ -0,0 +1,136 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.out.persistence;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.GetTradesPort;
+import com.vladimirbabin.github.async_spring_practice.config.AsyncExecutorConfig;
+import com.vladimirbabin.github.async_spring_practice.domain.model.DataVersionStamp;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import com.vladimirbabin.github.async_spring_practice.domain.model.TradeCriteria;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Reads trades with plain JDBC instead of JPA: no entities, no persistence context, only the columns the
+ * calculation needs, streamed from the database {@code fetchSize} rows at a time. Trades read here only carry
+ * id, version, quantity and prices. Enabled with {@code trades.read-path=jdbc}.
+ */
+@Component
+@ConditionalOnProperty(name = "trades.read-path", havingValue = "jdbc")
+public class TradeJdbcAdapter implements GetTradesPort {
+
+    private static final String COLUMNS = "id, version, product_quantity, product_buying_price, product_selling_price";
+    private static final String PUSHED_DOWN_COLUMNS = COLUMNS
+            + ", product_quantity * product_buying_price, product_quantity * product_selling_price";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+    private final boolean pushDownProducts;
+
+    public TradeJdbcAdapter(JdbcTemplate jdbcTemplate,
+                            @Value("${trades.jdbc.fetch-size:5000}") int fetchSize,
+                            @Value("${trades.jdbc.push-down-products:true}") boolean pushDownProducts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+        this.pushDownProducts = pushDownProducts;
+    }
+
+    @Async(AsyncExecutorConfig.TRADES_EXECUTOR)
+    @Override
+    public CompletableFuture<List<Trade>> getAllTrades() {
+        return CompletableFuture.completedFuture(
+                query("SELECT " + columns() + " FROM trades ORDER BY id"));
+    }
+
+    @Async(AsyncExecutorConfig.TRADES_EXECUTOR)
+    @Override
+    public CompletableFuture<List<Trade>> getTradesAfter(long afterTradeId, int limit) {
+        return CompletableFuture.completedFuture(
+                query("SELECT " + columns() + " FROM trades WHERE id > ? ORDER BY id LIMIT ?", afterTradeId, limit));
+    }
+
+    @Async(AsyncExecutorConfig.TRADES_EXECUTOR)
+    @Override
+    public CompletableFuture<List<Trade>> getTrades(TradeCriteria criteria) {
+        List<Object> args = new ArrayList<>();
+        String where = where(criteria, Long.MIN_VALUE, args);
+        return CompletableFuture.completedFuture(
+                query("SELECT " + columns() + " FROM trades WHERE " + where + " ORDER BY id", args.toArray()));
+    }
+
+    @Async(AsyncExecutorConfig.TRADES_EXECUTOR)
+    @Override
+    public CompletableFuture<List<Trade>> getTradesAfter(TradeCriteria criteria, long afterTradeId, int limit) {
+        List<Object> args = new ArrayList<>();
+        String where = where(criteria, afterTradeId, args);
+        args.add(limit);
+        return CompletableFuture.completedFuture(
+                query("SELECT " + columns() + " FROM trades WHERE " + where + " ORDER BY id LIMIT ?", args.toArray()));
+    }
+
+    @Async(AsyncExecutorConfig.TRADES_EXECUTOR)
+    @Override
+    public CompletableFuture<Long> getTradesVersion() {
+        return CompletableFuture.completedFuture(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*), COALESCE(MAX(id), 0), COALESCE(SUM(version), 0) FROM trades",
+                (resultSet, rowNum) -> DataVersionStamp.of(resultSet.getLong(1), resultSet.getLong(2), resultSet.getLong(3))));
+    }
+
+    // Only the set criteria become conditions, so the planner can pick the index of the most selective one
+    private static String where(TradeCriteria criteria, long afterTradeId, List<Object> args) {
+        StringBuilder where = new StringBuilder("id > ?");
+        args.add(afterTradeId);
+        if (criteria.getBuyingAccountId() != null) {
+            where.append(" AND buying_account_id = ?");
+            args.add(criteria.getBuyingAccountId());
+        }
+        if (criteria.getVendorAccountId() != null) {
+            where.append(" AND vendor_account_id = ?");
+            args.add(criteria.getVendorAccountId());
+        }
+        if (criteria.getProductName() != null) {
+            where.append(" AND product_name = ?");
+            args.add(criteria.getProductName());
+        }
+        if (criteria.getFromTradeId() != null) {
+            where.append(" AND id >= ?");
+            args.add(criteria.getFromTradeId());
+        }
+        if (criteria.getToTradeId() != null) {
+            where.append(" AND id <= ?");
+            args.add(criteria.getToTradeId());
+        }
+        return where.toString();
+    }
+
+    private String columns() {
+        return pushDownProducts ? PUSHED_DOWN_COLUMNS : COLUMNS;
+    }
+
+    private List<Trade> query(String sql, Object... args) {
+        return StreamingJdbcQuery.query(jdbcTemplate, sql, fetchSize, new ArgumentPreparedStatementSetter(args),
+                (resultSet, rowNum) -> toDomain(resultSet));
+    }
+
+    private Trade toDomain(ResultSet resultSet) throws SQLException {
+        Trade.TradeBuilder trade = Trade.builder()
+                .id(resultSet.getLong(1))
+                .version(resultSet.getLong(2))
+                .productQuantity(resultSet.getInt(3))
+                .productBuyingPrice(resultSet.getBigDecimal(4))
+                .productSellingPrice(resultSet.getBigDecimal(5));
+        if (pushDownProducts) {
+            trade.precomputedGrossProfit(resultSet.getBigDecimal(6))
+                    .precomputedCostOfGoods(resultSet.getBigDecimal(7));
+        }
+        return trade.build();
+    }
+}
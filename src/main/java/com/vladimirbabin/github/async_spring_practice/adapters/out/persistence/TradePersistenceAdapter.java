@@ -1,8 +1,14 @@
 package com.vladimirbabin.github.async_spring_practice.adapters.out.persistence;
 
 import com.vladimirbabin.github.async_spring_practice.application.ports.out.GetTradesPort;
+import com.vladimirbabin.github.async_spring_practice.config.AsyncExecutorConfig;
+import com.vladimirbabin.github.async_spring_practice.domain.model.DataVersionStamp;
 import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import com.vladimirbabin.github.async_spring_practice.domain.model.TradeCriteria;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
@@ -11,26 +17,67 @@ import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Component
+@ConditionalOnProperty(name = "trades.read-path", havingValue = "jpa", matchIfMissing = true)
 @RequiredArgsConstructor
 public class TradePersistenceAdapter implements GetTradesPort {
 
     private final TradeRepository tradeRepository;
 
     // TODO: try supply async with custom executor
-    // TODO: try flux in a separate git branch (return flux instead of CompletableFuture)
-    // executors? try different realisations of executors (simple, thread full task, etc.). Differs by settings that you define.
-    // Check how to create your own executors (put tasks in queue)
-    @Async
+    @Async(AsyncExecutorConfig.TRADES_EXECUTOR)
     @Override
     public CompletableFuture<List<Trade>> getAllTrades() {
         return CompletableFuture.completedFuture(
-                tradeRepository.findAll().stream()
+                tradeRepository.findAll(Sort.by("id")).stream()
                         .map(this::toDomain)
                         .collect(Collectors.toList())
         );
     }
 
-    private Trade toDomain(TradeEntity entity) {
+    @Async(AsyncExecutorConfig.TRADES_EXECUTOR)
+    @Override
+    public CompletableFuture<List<Trade>> getTradesAfter(long afterTradeId, int limit) {
+        return CompletableFuture.completedFuture(
+                tradeRepository.findByIdGreaterThanOrderByIdAsc(afterTradeId, Limit.of(limit)).stream()
+                        .map(this::toDomain)
+                        .collect(Collectors.toList())
+        );
+    }
+
+    @Async(AsyncExecutorConfig.TRADES_EXECUTOR)
+    @Override
+    public CompletableFuture<List<Trade>> getTrades(TradeCriteria criteria) {
+        return CompletableFuture.completedFuture(
+                tradeRepository.findAll(TradeSpecifications.matching(criteria, Long.MIN_VALUE), Sort.by("id")).stream()
+                        .map(this::toDomain)
+                        .collect(Collectors.toList())
+        );
+    }
+
+    // The fluent query applies the limit without the count query a Pageable would add
+    @Async(AsyncExecutorConfig.TRADES_EXECUTOR)
+    @Override
+    public CompletableFuture<List<Trade>> getTradesAfter(TradeCriteria criteria, long afterTradeId, int limit) {
+        return CompletableFuture.completedFuture(
+                tradeRepository.findBy(TradeSpecifications.matching(criteria, afterTradeId),
+                                query -> query.sortBy(Sort.by("id")).limit(limit).all()).stream()
+                        .map(this::toDomain)
+                        .collect(Collectors.toList())
+        );
+    }
+
+    @Async(AsyncExecutorConfig.TRADES_EXECUTOR)
+    @Override
+    public CompletableFuture<Long> getTradesVersion() {
+        Object[] aggregates = tradeRepository.findVersionAggregates().get(0);
+        return CompletableFuture.completedFuture(DataVersionStamp.of(
+                ((Number) aggregates[0]).longValue(),
+                ((Number) aggregates[1]).longValue(),
+                ((Number) aggregates[2]).longValue()));
+    }
+
+    // Package-private for the JMH benchmarks
+    Trade toDomain(TradeEntity entity) {
         return Trade.builder()
                 .id(entity.getId())
                 .buyingAccountId(entity.getBuyingAccountId())
@@ -39,6 +86,7 @@ public class TradePersistenceAdapter implements GetTradesPort {
                 .productQuantity(entity.getProductQuantity())
                 .productBuyingPrice(entity.getProductBuyingPrice())
                 .productSellingPrice(entity.getProductSellingPrice())
+                .version(entity.getVersion())
                 .build();
     }
 }
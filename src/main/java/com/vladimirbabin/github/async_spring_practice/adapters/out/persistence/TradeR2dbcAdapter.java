@@ -0,0 +1,55 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.out.persistence;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.ReactiveGetTradesPort;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+
+/**
+ * Reads trades over R2DBC. The rows come from a portal fetched {@code fetchSize} rows at a time, and the next
+ * batch is only fetched when downstream demand asks for it. Like the JDBC read path, trades carry only
+ * id, version, quantity, prices and the products computed in SQL.
+ */
+@Component
+@Profile("reactive")
+public class TradeR2dbcAdapter implements ReactiveGetTradesPort {
+
+    private static final String SELECT = "SELECT id, version, product_quantity, product_buying_price, product_selling_price,"
+            + " product_quantity * product_buying_price, product_quantity * product_selling_price"
+            + " FROM trades ORDER BY id";
+
+    private final DatabaseClient databaseClient;
+    private final int fetchSize;
+
+    public TradeR2dbcAdapter(DatabaseClient databaseClient,
+                             @Value("${trades.r2dbc.fetch-size:5000}") int fetchSize) {
+        this.databaseClient = databaseClient;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public Flux<Trade> getAllTrades() {
+        return databaseClient.sql(SELECT)
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(TradeR2dbcAdapter::toDomain)
+                .all();
+    }
+
+    private static Trade toDomain(Readable row) {
+        return Trade.builder()
+                .id(row.get(0, Long.class))
+                .version(row.get(1, Long.class))
+                .productQuantity(row.get(2, Integer.class))
+                .productBuyingPrice(row.get(3, BigDecimal.class))
+                .productSellingPrice(row.get(4, BigDecimal.class))
+                .precomputedGrossProfit(row.get(5, BigDecimal.class))
+                .precomputedCostOfGoods(row.get(6, BigDecimal.class))
+                .build();
+    }
+}
@@ -1,6 +1,16 @@
 package com.vladimirbabin.github.async_spring_practice.adapters.out.persistence;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
-public interface TradeRepository extends JpaRepository<TradeEntity, Long> {
+import java.util.List;
+
+public interface TradeRepository extends JpaRepository<TradeEntity, Long>, JpaSpecificationExecutor<TradeEntity> {
+
+    List<TradeEntity> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("SELECT COUNT(t), COALESCE(MAX(t.id), 0), COALESCE(SUM(t.version), 0) FROM TradeEntity t")
+    List<Object[]> findVersionAggregates();
 }
@@ -0,0 +1,41 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.out.persistence;
+
+import com.vladimirbabin.github.async_spring_practice.domain.model.TradeCriteria;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Translates {@link TradeCriteria} into a JPA {@link Specification}; only the set criteria become predicates, so
+ * the database can pick the index of the most selective one.
+ */
+final class TradeSpecifications {
+
+    private TradeSpecifications() {
+    }
+
+    static Specification<TradeEntity> matching(TradeCriteria criteria, long afterTradeId) {
+        return (root, query, builder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(builder.greaterThan(root.get("id"), afterTradeId));
+            if (criteria.getBuyingAccountId() != null) {
+                predicates.add(builder.equal(root.get("buyingAccountId"), criteria.getBuyingAccountId()));
+            }
+            if (criteria.getVendorAccountId() != null) {
+                predicates.add(builder.equal(root.get("vendorAccountId"), criteria.getVendorAccountId()));
+            }
+            if (criteria.getProductName() != null) {
+                predicates.add(builder.equal(root.get("productName"), criteria.getProductName()));
+            }
+            if (criteria.getFromTradeId() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("id"), criteria.getFromTradeId()));
+            }
+            if (criteria.getToTradeId() != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.get("id"), criteria.getToTradeId()));
+            }
+            return builder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
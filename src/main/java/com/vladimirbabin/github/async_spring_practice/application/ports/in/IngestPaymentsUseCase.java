@@ -0,0 +1,11 @@
+package com.vladimirbabin.github.async_spring_practice.application.ports.in;
+
+import com.vladimirbabin.github.async_spring_practice.domain.dto.PaymentIngestionResultDto;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface IngestPaymentsUseCase {
+    CompletableFuture<PaymentIngestionResultDto> ingestPayments(List<Payment> payments);
+}
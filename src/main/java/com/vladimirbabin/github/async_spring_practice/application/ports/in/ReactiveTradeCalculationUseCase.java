@@ -0,0 +1,8 @@
+package com.vladimirbabin.github.async_spring_practice.application.ports.in;
+
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveTradeCalculationUseCase {
+    Flux<TradeCalculationDto> streamTradeCalculations(int chunkSize);
+}
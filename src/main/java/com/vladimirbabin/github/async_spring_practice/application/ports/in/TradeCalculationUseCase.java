@@ -1,10 +1,33 @@
 package com.vladimirbabin.github.async_spring_practice.application.ports.in;
 
+import com.vladimirbabin.github.async_spring_practice.domain.dto.CalculationCacheStatsDto;
 import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationPageDto;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationsResultDto;
+import com.vladimirbabin.github.async_spring_practice.domain.model.TradeCriteria;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface TradeCalculationUseCase {
-    CompletableFuture<List<TradeCalculationDto>> getTradeCalculations();
+    CompletableFuture<TradeCalculationsResultDto> getTradeCalculations();
+
+    // Combined version of the trades and payments, cheap enough to check on every poll
+    CompletableFuture<Long> getDataVersion();
+
+    CompletableFuture<TradeCalculationPageDto> getTradeCalculationsPage(long afterTradeId, int limit);
+
+    // Reads only the matching trades and their payments
+    CompletableFuture<List<TradeCalculationDto>> getTradeCalculations(TradeCriteria criteria);
+
+    CompletableFuture<TradeCalculationPageDto> getTradeCalculationsPage(TradeCriteria criteria, long afterTradeId, int limit);
+
+    // Walks the whole book in id-ordered chunks, handing every calculated chunk to the consumer
+    void streamTradeCalculations(int chunkSize, Consumer<List<TradeCalculationDto>> chunkConsumer);
+
+    // Same, but walks only the matching trades
+    void streamTradeCalculations(TradeCriteria criteria, int chunkSize, Consumer<List<TradeCalculationDto>> chunkConsumer);
+
+    CalculationCacheStatsDto getCacheStats();
 }
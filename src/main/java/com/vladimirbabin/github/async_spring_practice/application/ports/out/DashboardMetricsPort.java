@@ -0,0 +1,18 @@
+package com.vladimirbabin.github.async_spring_practice.application.ports.out;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+public interface DashboardMetricsPort {
+    // Measures until the port's future completes, i.e. the latency the caller actually waits for
+    <T> CompletableFuture<T> timeFetch(String port, String query, Supplier<CompletableFuture<T>> call);
+
+    <T> T timePaymentGrouping(Supplier<T> grouping);
+
+    <T> T timeCalculation(Supplier<T> calculation);
+
+    void recordSerialization(String format, long nanos);
+
+    // Size of the last full calculation
+    void recordRows(int trades, int payments);
+}
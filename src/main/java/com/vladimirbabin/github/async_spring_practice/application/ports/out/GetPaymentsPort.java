@@ -2,9 +2,15 @@ package com.vladimirbabin.github.async_spring_practice.application.ports.out;
 
 import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 public interface GetPaymentsPort {
     CompletableFuture<List<Payment>> getAllPayments();
+
+    CompletableFuture<List<Payment>> getPaymentsByTradeIds(Collection<Long> tradeIds);
+
+    // Cheap fingerprint of the payments: changes whenever a payment is added or removed
+    CompletableFuture<Long> getPaymentsVersion();
 }
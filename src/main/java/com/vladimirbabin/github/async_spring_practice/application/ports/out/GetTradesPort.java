@@ -1,10 +1,23 @@
 package com.vladimirbabin.github.async_spring_practice.application.ports.out;
 
 import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import com.vladimirbabin.github.async_spring_practice.domain.model.TradeCriteria;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 public interface GetTradesPort {
     CompletableFuture<List<Trade>> getAllTrades();
+
+    // Keyset page: at most limit trades with id > afterTradeId, ordered by id
+    CompletableFuture<List<Trade>> getTradesAfter(long afterTradeId, int limit);
+
+    // Trades matching the criteria, ordered by id; served by the indexes on the criteria columns
+    CompletableFuture<List<Trade>> getTrades(TradeCriteria criteria);
+
+    // Keyset page of the trades matching the criteria
+    CompletableFuture<List<Trade>> getTradesAfter(TradeCriteria criteria, long afterTradeId, int limit);
+
+    // Cheap fingerprint of the trades table: changes whenever a trade is inserted, updated or deleted
+    CompletableFuture<Long> getTradesVersion();
 }
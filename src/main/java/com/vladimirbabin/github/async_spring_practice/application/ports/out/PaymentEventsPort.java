@@ -0,0 +1,19 @@
+package com.vladimirbabin.github.async_spring_practice.application.ports.out;
+
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+
+import java.util.List;
+
+/**
+ * The payments table read as an append-only log by id.
+ * <p>
+ * Precondition: no payment may commit with an id below one that is already visible, i.e. the table has a single
+ * writer at a time. Every insert has to go through {@code PaymentBatchWriterAdapter}, which serializes commits
+ * with an advisory lock, or run while nothing else writes (seeding, manual SQL in a maintenance window). Readers
+ * re-scan a lookback window of ids below their position, so a late commit inside that window is still picked up;
+ * one below it is missed for good.
+ */
+public interface PaymentEventsPort {
+    // Payments with an id above afterPaymentId in ascending id order
+    List<Payment> getPaymentsAfter(long afterPaymentId, int limit);
+}
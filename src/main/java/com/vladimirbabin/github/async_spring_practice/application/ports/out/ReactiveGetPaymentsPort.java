@@ -0,0 +1,10 @@
+package com.vladimirbabin.github.async_spring_practice.application.ports.out;
+
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+public interface ReactiveGetPaymentsPort {
+    Flux<Payment> getPaymentsByTradeIds(Collection<Long> tradeIds);
+}
@@ -0,0 +1,9 @@
+package com.vladimirbabin.github.async_spring_practice.application.ports.out;
+
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveGetTradesPort {
+    // Ordered by trade id; rows are read from the database only as fast as they are requested
+    Flux<Trade> getAllTrades();
+}
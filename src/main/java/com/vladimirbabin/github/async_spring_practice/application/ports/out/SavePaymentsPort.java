@@ -0,0 +1,11 @@
+package com.vladimirbabin.github.async_spring_practice.application.ports.out;
+
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface SavePaymentsPort {
+    // Returns the number of stored payments
+    CompletableFuture<Integer> savePayments(List<Payment> payments);
+}
@@ -0,0 +1,13 @@
+package com.vladimirbabin.github.async_spring_practice.application.ports.out;
+
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+
+import java.util.function.Consumer;
+
+public interface StreamPaymentsPort {
+    // Whether forEachPayment delivers payments in ascending trade id order
+    boolean isSortedByTradeId();
+
+    // Pushes every payment to the consumer on the calling thread without collecting them first
+    void forEachPayment(Consumer<Payment> consumer);
+}
@@ -0,0 +1,14 @@
+package com.vladimirbabin.github.async_spring_practice.application.ports.out;
+
+import com.vladimirbabin.github.async_spring_practice.domain.model.TradeBalance;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+public interface TradeBalanceSnapshotPort {
+    // Pushes every stored balance to the consumer; returns the id of the last payment they include
+    long loadSnapshot(Consumer<TradeBalance> consumer);
+
+    // Stores the balances as of lastPaymentId; false when a snapshot at or beyond lastPaymentId already exists
+    boolean saveSnapshot(Collection<TradeBalance> balances, long lastPaymentId);
+}
@@ -0,0 +1,142 @@
+package com.vladimirbabin.github.async_spring_practice.application.service;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.PaymentEventsPort;
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.TradeBalanceSnapshotPort;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.MaterializedBalances;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradePaymentTotals;
+import com.vladimirbabin.github.async_spring_practice.config.TradeCalculationProperties;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import com.vladimirbabin.github.async_spring_practice.domain.model.TradeBalance;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Keeps {@link MaterializedBalances} up to date by tailing the payments table by id, so the dashboard reads one
+ * entry per trade instead of aggregating every payment on every request. Starts from the last snapshot and
+ * replays only the payments stored after it. Enabled with {@code trade-calculation.balances.source=materialized}.
+ * <p>
+ * Catch-up and snapshots run under one lock so that a snapshot always matches its payment watermark; reads
+ * never take it.
+ * <p>
+ * Tailing by id relies on the single-writer precondition of {@link PaymentEventsPort}. As a safety net the ids
+ * applied within {@code late-commit-lookback} ids below the position are remembered; while that range has gaps,
+ * every catch-up re-reads it and applies the payments that committed late.
+ */
+@Service
+@ConditionalOnProperty(name = "trade-calculation.balances.source", havingValue = "materialized")
+public class MaterializedBalanceService {
+
+    private final PaymentEventsPort paymentEventsPort;
+    private final TradeBalanceSnapshotPort snapshotPort;
+    private final int catchUpBatchSize;
+    private final long lateCommitLookback;
+    private final MaterializedBalances balances = new MaterializedBalances();
+    private final Object updateLock = new Object();
+    // Ids in the lookback window that are already in the balances; guarded by updateLock
+    private final NavigableSet<Long> recentPaymentIds = new TreeSet<>();
+
+    // Id of the last payment applied to the balances
+    private volatile long lastPaymentId;
+
+    public MaterializedBalanceService(PaymentEventsPort paymentEventsPort, TradeBalanceSnapshotPort snapshotPort,
+                                      TradeCalculationProperties properties) {
+        this.paymentEventsPort = paymentEventsPort;
+        this.snapshotPort = snapshotPort;
+        this.catchUpBatchSize = properties.getBalances().getCatchUpBatchSize();
+        this.lateCommitLookback = properties.getBalances().getLateCommitLookback();
+    }
+
+    // Blocks startup until the balances are current, so the dashboard never serves partially replayed totals
+    @PostConstruct
+    public void initialize() {
+        synchronized (updateLock) {
+            lastPaymentId = snapshotPort.loadSnapshot(balances::restore);
+            // Whatever committed up to the snapshot watermark is in the snapshot
+            for (long id = windowStart() + 1; id <= lastPaymentId; id++) {
+                recentPaymentIds.add(id);
+            }
+            catchUp();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${trade-calculation.balances.catch-up-interval:PT1S}")
+    public long catchUp() {
+        synchronized (updateLock) {
+            long applied = applyLateCommits();
+            List<Payment> payments;
+            do {
+                payments = paymentEventsPort.getPaymentsAfter(lastPaymentId, catchUpBatchSize);
+                for (Payment payment : payments) {
+                    balances.apply(payment);
+                    recentPaymentIds.add(payment.getId());
+                }
+                if (!payments.isEmpty()) {
+                    lastPaymentId = payments.get(payments.size() - 1).getId();
+                    applied += payments.size();
+                }
+            } while (payments.size() == catchUpBatchSize);
+            recentPaymentIds.headSet(windowStart(), true).clear();
+            return applied;
+        }
+    }
+
+    // Re-reads the lookback window only while it has ids that were never applied
+    private long applyLateCommits() {
+        long windowStart = windowStart();
+        recentPaymentIds.headSet(windowStart, true).clear();
+        long windowSize = lastPaymentId - windowStart;
+        if (recentPaymentIds.size() == windowSize) {
+            return 0;
+        }
+        long applied = 0;
+        for (Payment payment : paymentEventsPort.getPaymentsAfter(windowStart, (int) windowSize)) {
+            if (payment.getId() <= lastPaymentId && recentPaymentIds.add(payment.getId())) {
+                balances.apply(payment);
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    private long windowStart() {
+        return Math.max(0, lastPaymentId - lateCommitLookback);
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${trade-calculation.balances.snapshot-interval:PT1M}",
+            initialDelayString = "${trade-calculation.balances.snapshot-interval:PT1M}")
+    public void snapshot() {
+        synchronized (updateLock) {
+            List<TradeBalance> changed = balances.drainChanged();
+            if (changed.isEmpty()) {
+                return;
+            }
+            try {
+                if (!snapshotPort.saveSnapshot(changed, lastPaymentId)) {
+                    // Another replica stored a newer snapshot; ours still has to include these trades later
+                    balances.markChanged(changed);
+                }
+            } catch (RuntimeException e) {
+                balances.markChanged(changed);
+                throw e;
+            }
+        }
+    }
+
+    public TradePaymentTotals totalsFor(List<Trade> trades) {
+        return balances.totalsFor(trades);
+    }
+
+    // Changes exactly when newly stored payments have been applied
+    public long getLastPaymentId() {
+        return lastPaymentId;
+    }
+}
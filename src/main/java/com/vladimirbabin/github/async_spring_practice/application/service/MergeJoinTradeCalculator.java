@@ -0,0 +1,127 @@
+package com.vladimirbabin.github.async_spring_practice.application.service;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.GetTradesPort;
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.StreamPaymentsPort;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.ExternalPaymentSorter;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradeCalculator;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradePaymentTotals;
+import com.vladimirbabin.github.async_spring_practice.application.service.resilience.PortGuard;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Sort-merge join of the whole book in one pass: trades are read in id-ordered pages, payments arrive as one
+ * stream ordered by trade id, and every page is calculated as soon as the payment stream moves past its last trade.
+ * The heap holds one page of trades with its payment totals, plus one sort run when the payment source is not
+ * sorted and has to go through the {@link ExternalPaymentSorter}.
+ * <p>
+ * A merge holds one connection for its payment cursor and needs a second one for every trades page, so at most
+ * {@code maxConcurrentStreams} merges run at once; it has to stay below the connection pool size, otherwise the
+ * cursors can take every connection and the page fetches starve. Trades pages go through the trades
+ * {@link PortGuard} like any other trades call.
+ */
+public class MergeJoinTradeCalculator {
+
+    private final GetTradesPort getTradesPort;
+    private final StreamPaymentsPort streamPaymentsPort;
+    private final TradeCalculator tradeCalculator;
+    private final ExternalPaymentSorter paymentSorter;
+    private final PortGuard tradesGuard;
+    private final Semaphore streams;
+
+    public MergeJoinTradeCalculator(GetTradesPort getTradesPort, StreamPaymentsPort streamPaymentsPort,
+                                    TradeCalculator tradeCalculator, ExternalPaymentSorter paymentSorter,
+                                    PortGuard tradesGuard, int maxConcurrentStreams) {
+        this.getTradesPort = getTradesPort;
+        this.streamPaymentsPort = streamPaymentsPort;
+        this.tradeCalculator = tradeCalculator;
+        this.paymentSorter = paymentSorter;
+        this.tradesGuard = tradesGuard;
+        this.streams = new Semaphore(maxConcurrentStreams);
+    }
+
+    // false without streaming anything when maxConcurrentStreams merges are already running
+    public boolean tryStreamTradeCalculations(int chunkSize, Consumer<List<TradeCalculationDto>> chunkConsumer) {
+        if (!streams.tryAcquire()) {
+            return false;
+        }
+        try {
+            Merge merge = new Merge(chunkSize, chunkConsumer);
+            if (streamPaymentsPort.isSortedByTradeId()) {
+                streamPaymentsPort.forEachPayment(merge::accept);
+            } else {
+                paymentSorter.sort(streamPaymentsPort::forEachPayment, merge::accept);
+            }
+            merge.finish();
+            return true;
+        } finally {
+            streams.release();
+        }
+    }
+
+    private final class Merge {
+        private final int chunkSize;
+        private final Consumer<List<TradeCalculationDto>> chunkConsumer;
+        private List<Trade> page = List.of();
+        private TradePaymentTotals paymentTotals;
+        private long after;
+        private boolean lastPage;
+        private long previousTradeId = Long.MIN_VALUE;
+
+        private Merge(int chunkSize, Consumer<List<TradeCalculationDto>> chunkConsumer) {
+            this.chunkSize = chunkSize;
+            this.chunkConsumer = chunkConsumer;
+        }
+
+        private void accept(Payment payment) {
+            long tradeId = payment.getTradeId();
+            if (tradeId < previousTradeId) {
+                throw new IllegalStateException("Payments are not ordered by trade id: " + tradeId
+                        + " after " + previousTradeId);
+            }
+            previousTradeId = tradeId;
+            while (page.isEmpty() || tradeId > lastTradeId()) {
+                if (!advance()) {
+                    // No trades left, the remaining payments have no trade
+                    return;
+                }
+            }
+            paymentTotals.add(payment);
+        }
+
+        private void finish() {
+            while (advance()) {
+                // Trades after the last payment
+            }
+        }
+
+        // Calculates the current page and loads the next one; false once the trades are exhausted
+        private boolean advance() {
+            if (!page.isEmpty()) {
+                chunkConsumer.accept(tradeCalculator.calculate(page, paymentTotals));
+                page = List.of();
+            }
+            if (lastPage) {
+                return false;
+            }
+            long pageAfter = after;
+            page = tradesGuard.call(() -> getTradesPort.getTradesAfter(pageAfter, chunkSize)).join();
+            lastPage = page.size() < chunkSize;
+            if (page.isEmpty()) {
+                return false;
+            }
+            after = lastTradeId();
+            paymentTotals = new TradePaymentTotals(page.size());
+            return true;
+        }
+
+        private long lastTradeId() {
+            return page.get(page.size() - 1).getId();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.vladimirbabin.github.async_spring_practice.application.service;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.in.IngestPaymentsUseCase;
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.SavePaymentsPort;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.PaymentIngestionResultDto;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@ConditionalOnProperty(name = "payments.source", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class PaymentIngestionService implements IngestPaymentsUseCase {
+
+    private final SavePaymentsPort savePaymentsPort;
+
+    @Override
+    public CompletableFuture<PaymentIngestionResultDto> ingestPayments(List<Payment> payments) {
+        long start = System.nanoTime();
+        return savePaymentsPort.savePayments(payments)
+                .thenApply(rows -> {
+                    long elapsedNanos = Math.max(1, System.nanoTime() - start);
+                    return PaymentIngestionResultDto.builder()
+                            .rows(rows)
+                            .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                            .rowsPerSecond(rows * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos)
+                            .build();
+                });
+    }
+}
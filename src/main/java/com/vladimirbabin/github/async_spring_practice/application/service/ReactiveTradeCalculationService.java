@@ -0,0 +1,53 @@
+package com.vladimirbabin.github.async_spring_practice.application.service;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.in.ReactiveTradeCalculationUseCase;
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.ReactiveGetPaymentsPort;
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.ReactiveGetTradesPort;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradeCalculator;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradePaymentTotals;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Streams the book in id-ordered chunks: every chunk of trades is joined with the payments of exactly those trades
+ * and calculated before the next chunk is requested, so memory stays bounded by one chunk and a slow client
+ * slows down the trades query instead of buffering it.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveTradeCalculationService implements ReactiveTradeCalculationUseCase {
+
+    private final ReactiveGetTradesPort getTradesPort;
+    private final ReactiveGetPaymentsPort getPaymentsPort;
+    private final TradeCalculator tradeCalculator;
+
+    @Override
+    public Flux<TradeCalculationDto> streamTradeCalculations(int chunkSize) {
+        return getTradesPort.getAllTrades()
+                .buffer(chunkSize)
+                // Prefetch 1 on both steps: a chunk is only pulled once the previous one is being written
+                .concatMap(this::calculateChunk, 1)
+                .flatMapIterable(Function.identity(), 1);
+    }
+
+    private Flux<List<TradeCalculationDto>> calculateChunk(List<Trade> trades) {
+        List<Long> tradeIds = trades.stream()
+                .map(Trade::getId)
+                .toList();
+        return getPaymentsPort.getPaymentsByTradeIds(tradeIds)
+                .collectList()
+                // Keep the calculation off the driver's event loop
+                .publishOn(Schedulers.parallel())
+                .map(payments -> tradeCalculator.calculate(trades, TradePaymentTotals.of(payments)))
+                .flux();
+    }
+}
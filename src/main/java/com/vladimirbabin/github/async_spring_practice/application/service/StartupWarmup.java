@@ -0,0 +1,82 @@
+package com.vladimirbabin.github.async_spring_practice.application.service;
+
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradeCalculator;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradePaymentTotals;
+import com.vladimirbabin.github.async_spring_practice.config.TradeCalculationProperties;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs the payment grouping and trade calculation of {@link TradeCalculationService} on synthetic data before
+ * the first request, so the JIT has compiled the hot path by the time traffic arrives. It calls
+ * {@link TradePaymentTotals} and {@link TradeCalculator} directly rather than through the service, so the
+ * synthetic runs never show up in the dashboard timers of a fresh replica. Application runners
+ * complete before Spring Boot publishes the readiness state, so the readiness probe stays down until this is
+ * done. Enabled with {@code trade-calculation.warmup.enabled=true}.
+ * <p>
+ * Synthetic trades carry no row version, which keeps them out of the calculation cache.
+ */
+@Component
+@ConditionalOnProperty(name = "trade-calculation.warmup.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class StartupWarmup implements ApplicationRunner {
+
+    private final TradeCalculator tradeCalculator;
+    private final TradeCalculationProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        TradeCalculationProperties.Warmup warmup = properties.getWarmup();
+        Random random = new Random(17);
+        List<Trade> trades = syntheticTrades(warmup.getTrades(), random);
+        List<Payment> payments = syntheticPayments(warmup.getTrades(), warmup.getMaxPaymentsPerTrade(), random);
+        for (int i = 0; i < warmup.getIterations(); i++) {
+            tradeCalculator.calculate(trades, TradePaymentTotals.of(payments));
+        }
+    }
+
+    private static List<Trade> syntheticTrades(int count, Random random) {
+        List<Trade> trades = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            trades.add(Trade.builder()
+                    .id(id)
+                    .productQuantity(1 + random.nextInt(100))
+                    .productBuyingPrice(BigDecimal.valueOf(100 + random.nextInt(100_000), 2))
+                    .productSellingPrice(BigDecimal.valueOf(100 + random.nextInt(150_000), 2))
+                    .build());
+        }
+        return trades;
+    }
+
+    private static List<Payment> syntheticPayments(int tradeCount, int maxPaymentsPerTrade, Random random) {
+        List<Payment> payments = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        long id = 1;
+        for (long tradeId = 1; tradeId <= tradeCount; tradeId++) {
+            int count = random.nextInt(maxPaymentsPerTrade + 1);
+            for (int i = 0; i < count; i++) {
+                payments.add(Payment.builder()
+                        .id(id++)
+                        .tradeId(tradeId)
+                        .type(random.nextBoolean() ? PaymentType.BUYER : PaymentType.VENDOR)
+                        .amount(BigDecimal.valueOf(100 + random.nextInt(1_000_000), 2))
+                        .currency("USD")
+                        .paymentDate(today)
+                        .build());
+            }
+        }
+        return payments;
+    }
+}
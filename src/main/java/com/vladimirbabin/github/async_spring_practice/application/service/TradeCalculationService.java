@@ -1,19 +1,31 @@
 package com.vladimirbabin.github.async_spring_practice.application.service;
 
 import com.vladimirbabin.github.async_spring_practice.application.ports.in.TradeCalculationUseCase;
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.DashboardMetricsPort;
 import com.vladimirbabin.github.async_spring_practice.application.ports.out.GetPaymentsPort;
 import com.vladimirbabin.github.async_spring_practice.application.ports.out.GetTradesPort;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradeCalculator;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradePaymentTotals;
+import com.vladimirbabin.github.async_spring_practice.application.service.resilience.PortGuards;
+import com.vladimirbabin.github.async_spring_practice.application.service.resilience.SingleFlight;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.CalculationCacheStatsDto;
 import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationPageDto;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationsResultDto;
+import com.vladimirbabin.github.async_spring_practice.domain.model.DataVersionStamp;
 import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
-import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
 import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import com.vladimirbabin.github.async_spring_practice.domain.model.TradeCriteria;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,56 +34,198 @@ public class TradeCalculationService implements TradeCalculationUseCase {
 
     private final GetTradesPort getTradesPort;
     private final GetPaymentsPort getPaymentsPort;
+    private final TradeCalculator tradeCalculator;
+    private final PortGuards portGuards;
+    private final DashboardMetricsPort dashboardMetrics;
+    // Present with trade-calculation.join.mode=merge
+    private final Optional<MergeJoinTradeCalculator> mergeJoinTradeCalculator;
+    // Present with trade-calculation.balances.source=materialized
+    private final Optional<MaterializedBalanceService> materializedBalanceService;
+
+    // Last fully calculated result, served flagged as stale when a port fails or times out
+    private volatile TradeCalculationsResultDto lastGoodResult;
+
+    // Concurrent dashboard polls share one calculation and one version check
+    private final SingleFlight<TradeCalculationsResultDto> calculationFlight = new SingleFlight<>();
+    private final SingleFlight<Long> versionFlight = new SingleFlight<>();
 
     @Override
-    public CompletableFuture<List<TradeCalculationDto>> getTradeCalculations() {
-        CompletableFuture<List<Trade>> tradesFuture = getTradesPort.getAllTrades();
-        CompletableFuture<List<Payment>> paymentsFuture = getPaymentsPort.getAllPayments();
+    public CompletableFuture<TradeCalculationsResultDto> getTradeCalculations() {
+        return calculationFlight.execute(() -> getDataVersion()
+                // An unknown version only disables the reuse below; the fetch decides whether to fall back
+                .handle((dataVersion, failure) -> dataVersion)
+                .thenCompose(this::calculateIfChanged));
+    }
 
-        return tradesFuture.thenCombine(paymentsFuture, (trades, payments) -> {
-            Map<Long, List<Payment>> paymentsByTradeId = payments.stream()
-                    .collect(Collectors.groupingBy(Payment::getTradeId));
-
-            return trades.stream()
-                    .map(trade -> {
-
-                        // TODO: extract helper methods for readability
-                        BigDecimal grossProfit = trade.getProductBuyingPrice()
-                                .multiply(
-                                        BigDecimal
-                                                .valueOf(
-                                                        trade.getProductQuantity()));
-                        BigDecimal costOfGoods = trade.getProductSellingPrice()
-                                .multiply(
-                                        BigDecimal
-                                                .valueOf(
-                                                        trade.getProductQuantity()));
-
-                        List<Payment> tradePayments = paymentsByTradeId.get(trade.getId());
-                        BigDecimal balance = BigDecimal.ZERO;
-
-                        // TODO: add handling of default
-                        // TODO: extract to a separate component
-                        if (tradePayments != null) {
-                            BigDecimal buyerPayments = tradePayments.stream()
-                                    .filter(p -> p.getType() == PaymentType.BUYER)
-                                    .map(Payment::getAmount)
-                                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-                            BigDecimal vendorPayments = tradePayments.stream()
-                                    .filter(p -> p.getType() == PaymentType.VENDOR)
-                                    .map(Payment::getAmount)
-                                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-                            balance = buyerPayments.subtract(vendorPayments);
-                        }
-
-                        return TradeCalculationDto.builder()
-                                .tradeId(trade.getId())
-                                .grossProfit(grossProfit)
-                                .costOfGoods(costOfGoods)
-                                .balance(balance)
-                                .build();
-                    })
-                    .collect(Collectors.toList());
+    @Override
+    public CompletableFuture<Long> getDataVersion() {
+        return versionFlight.execute(() -> {
+            CompletableFuture<Long> tradesVersion = portGuards.getTrades().call(getTradesPort::getTradesVersion);
+            // Materialized balances only change when the service applies new payments, whatever the table holds
+            CompletableFuture<Long> paymentsVersion = materializedBalanceService
+                    .map(service -> CompletableFuture.completedFuture(service.getLastPaymentId()))
+                    .orElseGet(() -> portGuards.getPayments().call(getPaymentsPort::getPaymentsVersion));
+            return tradesVersion.thenCombine(paymentsVersion,
+                    (trades, payments) -> DataVersionStamp.of(trades, payments));
         });
     }
+
+    private CompletableFuture<TradeCalculationsResultDto> calculateIfChanged(Long dataVersion) {
+        TradeCalculationsResultDto snapshot = lastGoodResult;
+        if (dataVersion != null && snapshot != null && dataVersion.equals(snapshot.getDataVersion())) {
+            return CompletableFuture.completedFuture(snapshot);
+        }
+        CompletableFuture<List<Trade>> tradesFuture = dashboardMetrics.timeFetch("trades", "all",
+                () -> portGuards.getTrades().call(getTradesPort::getAllTrades));
+        if (materializedBalanceService.isPresent()) {
+            return tradesFuture.thenApply(trades -> remember(calculate(trades, materializedTotals(trades)), dataVersion))
+                    .exceptionallyCompose(failure -> fallback(tradesFuture, failure));
+        }
+        CompletableFuture<List<Payment>> paymentsFuture = dashboardMetrics.timeFetch("payments", "all",
+                () -> portGuards.getPayments().call(getPaymentsPort::getAllPayments));
+
+        return tradesFuture.thenCombine(paymentsFuture, (trades, payments) -> {
+                    dashboardMetrics.recordRows(trades.size(), payments.size());
+                    return remember(calculate(trades, payments), dataVersion);
+                })
+                .exceptionallyCompose(failure -> fallback(tradesFuture, failure));
+    }
+
+    private TradeCalculationsResultDto remember(List<TradeCalculationDto> calculations, Long dataVersion) {
+        TradeCalculationsResultDto result = TradeCalculationsResultDto.builder()
+                .calculations(calculations)
+                .calculatedAt(Instant.now())
+                .dataVersion(dataVersion)
+                .build();
+        lastGoodResult = result;
+        return result;
+    }
+
+    private CompletableFuture<TradeCalculationsResultDto> fallback(CompletableFuture<List<Trade>> tradesFuture,
+                                                                   Throwable failure) {
+        TradeCalculationsResultDto snapshot = lastGoodResult;
+        if (snapshot != null) {
+            return CompletableFuture.completedFuture(snapshot.toBuilder().stale(true).build());
+        }
+        if (tradesFuture.isDone() && !tradesFuture.isCompletedExceptionally()) {
+            // Only payments are missing: serve gross profit and cost of goods without balances
+            return CompletableFuture.completedFuture(TradeCalculationsResultDto.builder()
+                    .calculations(withoutBalances(calculate(tradesFuture.join(), List.of())))
+                    .calculatedAt(Instant.now())
+                    .partial(true)
+                    .build());
+        }
+        return CompletableFuture.failedFuture(failure);
+    }
+
+    // Builds new DTOs: calculations may be shared through the calculation cache
+    private static List<TradeCalculationDto> withoutBalances(List<TradeCalculationDto> calculations) {
+        List<TradeCalculationDto> result = new ArrayList<>(calculations.size());
+        for (TradeCalculationDto calculation : calculations) {
+            result.add(TradeCalculationDto.builder()
+                    .tradeId(calculation.getTradeId())
+                    .grossProfit(calculation.getGrossProfit())
+                    .costOfGoods(calculation.getCostOfGoods())
+                    .build());
+        }
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<TradeCalculationPageDto> getTradeCalculationsPage(long afterTradeId, int limit) {
+        return toPage(dashboardMetrics.timeFetch("trades", "page",
+                () -> portGuards.getTrades().call(() -> getTradesPort.getTradesAfter(afterTradeId, limit))), limit, "page");
+    }
+
+    @Override
+    public CompletableFuture<List<TradeCalculationDto>> getTradeCalculations(TradeCriteria criteria) {
+        return dashboardMetrics.timeFetch("trades", "filtered",
+                        () -> portGuards.getTrades().call(() -> getTradesPort.getTrades(criteria)))
+                .thenCompose(trades -> calculateWithPaymentsOf(trades, "filtered"));
+    }
+
+    @Override
+    public CompletableFuture<TradeCalculationPageDto> getTradeCalculationsPage(TradeCriteria criteria, long afterTradeId,
+                                                                               int limit) {
+        return toPage(dashboardMetrics.timeFetch("trades", "filtered-page",
+                        () -> portGuards.getTrades().call(() -> getTradesPort.getTradesAfter(criteria, afterTradeId, limit))),
+                limit, "filtered-page");
+    }
+
+    private CompletableFuture<TradeCalculationPageDto> toPage(CompletableFuture<List<Trade>> tradesFuture, int limit,
+                                                              String query) {
+        return tradesFuture.thenCompose(trades -> calculateWithPaymentsOf(trades, query)
+                .thenApply(calculations -> TradeCalculationPageDto.builder()
+                        .calculations(calculations)
+                        .nextAfter(trades.size() < limit ? null : trades.get(trades.size() - 1).getId())
+                        .build()));
+    }
+
+    // Fetches the payments of the given trades only
+    private CompletableFuture<List<TradeCalculationDto>> calculateWithPaymentsOf(List<Trade> trades, String query) {
+        if (trades.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        if (materializedBalanceService.isPresent()) {
+            return CompletableFuture.completedFuture(calculate(trades, materializedTotals(trades)));
+        }
+        List<Long> tradeIds = trades.stream()
+                .map(Trade::getId)
+                .collect(Collectors.toList());
+        return dashboardMetrics.timeFetch("payments", query,
+                        () -> portGuards.getPayments().call(() -> getPaymentsPort.getPaymentsByTradeIds(tradeIds)))
+                .thenApply(payments -> calculate(trades, payments));
+    }
+
+    @Override
+    public void streamTradeCalculations(int chunkSize, Consumer<List<TradeCalculationDto>> chunkConsumer) {
+        // Pages read the materialized balances without touching the payments, so there is nothing to merge.
+        // While every merge slot is taken the stream falls back to pages, which hold no connection in between
+        if (mergeJoinTradeCalculator.isPresent() && materializedBalanceService.isEmpty()
+                && mergeJoinTradeCalculator.get().tryStreamTradeCalculations(chunkSize, chunkConsumer)) {
+            return;
+        }
+        streamPages(after -> getTradeCalculationsPage(after, chunkSize), chunkConsumer);
+    }
+
+    @Override
+    public void streamTradeCalculations(TradeCriteria criteria, int chunkSize,
+                                        Consumer<List<TradeCalculationDto>> chunkConsumer) {
+        if (criteria.matchesAll()) {
+            streamTradeCalculations(chunkSize, chunkConsumer);
+            return;
+        }
+        streamPages(after -> getTradeCalculationsPage(criteria, after, chunkSize), chunkConsumer);
+    }
+
+    private static void streamPages(LongFunction<CompletableFuture<TradeCalculationPageDto>> pageAfter,
+                                    Consumer<List<TradeCalculationDto>> chunkConsumer) {
+        Long after = 0L;
+        while (after != null) {
+            TradeCalculationPageDto page = pageAfter.apply(after).join();
+            if (!page.getCalculations().isEmpty()) {
+                chunkConsumer.accept(page.getCalculations());
+            }
+            after = page.getNextAfter();
+        }
+    }
+
+    @Override
+    public CalculationCacheStatsDto getCacheStats() {
+        return tradeCalculator.getCacheStats();
+    }
+
+    // Package-private for the JMH benchmarks
+    List<TradeCalculationDto> calculate(List<Trade> trades, List<Payment> payments) {
+        return calculate(trades, dashboardMetrics.timePaymentGrouping(() -> TradePaymentTotals.of(payments)));
+    }
+
+    private List<TradeCalculationDto> calculate(List<Trade> trades, TradePaymentTotals paymentTotals) {
+        return dashboardMetrics.timeCalculation(() -> tradeCalculator.calculate(trades, paymentTotals));
+    }
+
+    // One lookup per trade, recorded as the grouping stage it replaces
+    private TradePaymentTotals materializedTotals(List<Trade> trades) {
+        return dashboardMetrics.timePaymentGrouping(() -> materializedBalanceService.get().totalsFor(trades));
+    }
 }
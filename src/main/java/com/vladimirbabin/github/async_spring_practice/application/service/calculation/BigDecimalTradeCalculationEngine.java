@@ -0,0 +1,31 @@
+package com.vladimirbabin.github.async_spring_practice.application.service.calculation;
+
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+@Component
+@ConditionalOnProperty(name = "trade-calculation.engine", havingValue = "big-decimal", matchIfMissing = true)
+public class BigDecimalTradeCalculationEngine implements TradeCalculationEngine {
+
+    @Override
+    public TradeCalculationDto calculate(Trade trade, TradePaymentTotals paymentTotals) {
+        return TradeCalculationDto.builder()
+                .tradeId(trade.getId())
+                .grossProfit(trade.getPrecomputedGrossProfit() != null
+                        ? trade.getPrecomputedGrossProfit()
+                        : multiply(trade.getProductBuyingPrice(), trade.getProductQuantity()))
+                .costOfGoods(trade.getPrecomputedCostOfGoods() != null
+                        ? trade.getPrecomputedCostOfGoods()
+                        : multiply(trade.getProductSellingPrice(), trade.getProductQuantity()))
+                .balance(paymentTotals.balance(trade.getId()))
+                .build();
+    }
+
+    private static BigDecimal multiply(BigDecimal price, int quantity) {
+        return price.multiply(BigDecimal.valueOf(quantity));
+    }
+}
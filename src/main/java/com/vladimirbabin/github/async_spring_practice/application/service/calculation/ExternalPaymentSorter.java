@@ -0,0 +1,191 @@
+package com.vladimirbabin.github.async_spring_practice.application.service.calculation;
+
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Sorts a payment stream by trade id with at most {@code runSize} payments on the heap. Payments are collected
+ * into runs of {@code runSize}; every full run is sorted and spilled to a temp file, and the runs are then merged
+ * k-way, reading each file through a memory-mapped buffer. A stream that fits into a single run is sorted in memory
+ * without touching the disk. The sort is stable: payments of one trade keep their source order.
+ */
+public class ExternalPaymentSorter {
+
+    private static final Comparator<Payment> BY_TRADE_ID = Comparator.comparingLong(Payment::getTradeId);
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    private final int runSize;
+    private final Path spillDirectory;
+
+    public ExternalPaymentSorter(int runSize, Path spillDirectory) {
+        this.runSize = runSize;
+        this.spillDirectory = spillDirectory;
+    }
+
+    public void sort(Consumer<Consumer<Payment>> source, Consumer<Payment> sink) {
+        List<Path> runs = new ArrayList<>();
+        List<Payment> buffer = new ArrayList<>(Math.min(runSize, 1 << 16));
+        try {
+            source.accept(payment -> {
+                buffer.add(payment);
+                if (buffer.size() == runSize) {
+                    spill(buffer, runs);
+                }
+            });
+            if (runs.isEmpty()) {
+                buffer.sort(BY_TRADE_ID);
+                buffer.forEach(sink);
+                return;
+            }
+            if (!buffer.isEmpty()) {
+                spill(buffer, runs);
+            }
+            merge(runs, sink);
+        } finally {
+            runs.forEach(ExternalPaymentSorter::deleteQuietly);
+        }
+    }
+
+    // The run is registered before it is written, so a failed write still gets its file deleted
+    private void spill(List<Payment> buffer, List<Path> runs) {
+        buffer.sort(BY_TRADE_ID);
+        try {
+            Path run = Files.createTempFile(spillDirectory, "payments-run-", ".bin");
+            runs.add(run);
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+                for (Payment payment : buffer) {
+                    write(output, payment);
+                }
+            }
+            buffer.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void merge(List<Path> runs, Consumer<Payment> sink) {
+        // Ties go to the earlier run, which keeps the merge stable
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(Comparator
+                .comparingLong((RunReader reader) -> reader.head.getTradeId())
+                .thenComparingInt(reader -> reader.index));
+        for (int i = 0; i < runs.size(); i++) {
+            RunReader reader = new RunReader(i, map(runs.get(i)));
+            if (reader.advance()) {
+                queue.add(reader);
+            }
+        }
+        while (!queue.isEmpty()) {
+            RunReader reader = queue.poll();
+            sink.accept(reader.head);
+            if (reader.advance()) {
+                queue.add(reader);
+            }
+        }
+    }
+
+    private static MappedByteBuffer map(Path run) {
+        try (FileChannel channel = FileChannel.open(run, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Spilled run " + run + " is larger than 2 GB, lower the sort run size");
+            }
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void write(DataOutputStream output, Payment payment) throws IOException {
+        output.writeLong(payment.getTradeId());
+        output.writeLong(payment.getId() != null ? payment.getId() : NULL_LONG);
+        output.writeByte(payment.getType() != null ? payment.getType().ordinal() : -1);
+        BigDecimal amount = payment.getAmount();
+        if (amount == null) {
+            output.writeInt(-1);
+        } else {
+            byte[] unscaled = amount.unscaledValue().toByteArray();
+            output.writeInt(unscaled.length);
+            output.write(unscaled);
+            output.writeInt(amount.scale());
+        }
+        if (payment.getCurrency() == null) {
+            output.writeInt(-1);
+        } else {
+            byte[] currency = payment.getCurrency().getBytes(StandardCharsets.UTF_8);
+            output.writeInt(currency.length);
+            output.write(currency);
+        }
+        output.writeLong(payment.getPaymentDate() != null ? payment.getPaymentDate().toEpochDay() : NULL_LONG);
+    }
+
+    private static Payment read(ByteBuffer input) {
+        Payment.PaymentBuilder payment = Payment.builder().tradeId(input.getLong());
+        long id = input.getLong();
+        payment.id(id != NULL_LONG ? id : null);
+        byte type = input.get();
+        payment.type(type >= 0 ? PaymentType.values()[type] : null);
+        int amountLength = input.getInt();
+        if (amountLength >= 0) {
+            byte[] unscaled = new byte[amountLength];
+            input.get(unscaled);
+            payment.amount(new BigDecimal(new BigInteger(unscaled), input.getInt()));
+        }
+        int currencyLength = input.getInt();
+        if (currencyLength >= 0) {
+            byte[] currency = new byte[currencyLength];
+            input.get(currency);
+            payment.currency(new String(currency, StandardCharsets.UTF_8));
+        }
+        long epochDay = input.getLong();
+        payment.paymentDate(epochDay != NULL_LONG ? LocalDate.ofEpochDay(epochDay) : null);
+        return payment.build();
+    }
+
+    private static void deleteQuietly(Path run) {
+        try {
+            Files.deleteIfExists(run);
+        } catch (IOException ignored) {
+            // Left in the temp directory; never read again
+        }
+    }
+
+    private static final class RunReader {
+        private final int index;
+        private final ByteBuffer buffer;
+        private Payment head;
+
+        private RunReader(int index, ByteBuffer buffer) {
+            this.index = index;
+            this.buffer = buffer;
+        }
+
+        private boolean advance() {
+            if (!buffer.hasRemaining()) {
+                return false;
+            }
+            head = read(buffer);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.vladimirbabin.github.async_spring_practice.application.service.calculation;
+
+import java.math.BigDecimal;
+
+/**
+ * Helpers for amounts kept as a {@code long} unscaled value plus a decimal scale, the same representation
+ * {@link BigDecimal} uses internally. Every operation throws {@link ArithmeticException} instead of overflowing.
+ */
+final class FixedPoint {
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    private FixedPoint() {
+    }
+
+    static long unscaled(BigDecimal value) {
+        return value.unscaledValue().longValueExact();
+    }
+
+    // Multiplies by 10^digits, i.e. expresses the same amount with digits more decimal places
+    static long rescale(long unscaled, int digits) {
+        if (digits >= POWERS_OF_TEN.length) {
+            throw new ArithmeticException("Scale difference too large: " + digits);
+        }
+        return Math.multiplyExact(unscaled, POWERS_OF_TEN[digits]);
+    }
+}
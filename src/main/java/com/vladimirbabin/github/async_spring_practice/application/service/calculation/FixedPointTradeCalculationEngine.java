@@ -0,0 +1,43 @@
+package com.vladimirbabin.github.async_spring_practice.application.service.calculation;
+
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Does the arithmetic on {@code long} unscaled values (cents for {@code DECIMAL(19, 2)} columns) and only builds
+ * {@link BigDecimal}s for the resulting DTO. Results are equal, scale included, to
+ * {@link BigDecimalTradeCalculationEngine}; a trade whose numbers overflow a {@code long} is recalculated with it.
+ * Payment totals are kept the same way by {@link TradePaymentTotals}.
+ */
+@Component
+@ConditionalOnProperty(name = "trade-calculation.engine", havingValue = "fixed-point")
+public class FixedPointTradeCalculationEngine implements TradeCalculationEngine {
+
+    private final BigDecimalTradeCalculationEngine fallback = new BigDecimalTradeCalculationEngine();
+
+    @Override
+    public TradeCalculationDto calculate(Trade trade, TradePaymentTotals paymentTotals) {
+        try {
+            return TradeCalculationDto.builder()
+                    .tradeId(trade.getId())
+                    .grossProfit(trade.getPrecomputedGrossProfit() != null
+                            ? trade.getPrecomputedGrossProfit()
+                            : multiply(trade.getProductBuyingPrice(), trade.getProductQuantity()))
+                    .costOfGoods(trade.getPrecomputedCostOfGoods() != null
+                            ? trade.getPrecomputedCostOfGoods()
+                            : multiply(trade.getProductSellingPrice(), trade.getProductQuantity()))
+                    .balance(paymentTotals.balance(trade.getId()))
+                    .build();
+        } catch (ArithmeticException e) {
+            return fallback.calculate(trade, paymentTotals);
+        }
+    }
+
+    private static BigDecimal multiply(BigDecimal price, int quantity) {
+        return BigDecimal.valueOf(Math.multiplyExact(FixedPoint.unscaled(price), quantity), price.scale());
+    }
+}
@@ -0,0 +1,97 @@
+package com.vladimirbabin.github.async_spring_practice.application.service.calculation;
+
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import com.vladimirbabin.github.async_spring_practice.domain.model.TradeBalance;
+import org.springframework.lang.Nullable;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-trade buyer and vendor totals, updated one payment at a time instead of being rebuilt from all payments.
+ * Entries are immutable and swapped with {@link ConcurrentHashMap#compute}, so readers never lock and never see
+ * a half-applied payment. Trades changed since the last {@link #drainChanged()} are tracked for snapshots.
+ */
+public class MaterializedBalances {
+
+    private final Map<Long, TradeBalance> balances = new ConcurrentHashMap<>();
+    private final Set<Long> changedTradeIds = ConcurrentHashMap.newKeySet();
+
+    public void apply(Payment payment) {
+        PaymentType type = payment.getType();
+        if (type != PaymentType.BUYER && type != PaymentType.VENDOR) {
+            return;
+        }
+        BigDecimal buyerAmount = type == PaymentType.BUYER ? payment.getAmount() : BigDecimal.ZERO;
+        BigDecimal vendorAmount = type == PaymentType.VENDOR ? payment.getAmount() : BigDecimal.ZERO;
+        long stamp = TradePaymentTotals.stamp(payment);
+        balances.compute(payment.getTradeId(), (tradeId, balance) -> balance == null
+                ? TradeBalance.builder()
+                        .tradeId(tradeId)
+                        .buyerTotal(buyerAmount)
+                        .vendorTotal(vendorAmount)
+                        .paymentsVersion(stamp)
+                        .build()
+                : TradeBalance.builder()
+                        .tradeId(tradeId)
+                        .buyerTotal(balance.getBuyerTotal().add(buyerAmount))
+                        .vendorTotal(balance.getVendorTotal().add(vendorAmount))
+                        .paymentsVersion(balance.getPaymentsVersion() + stamp)
+                        .build());
+        changedTradeIds.add(payment.getTradeId());
+    }
+
+    // Restores a balance read from a snapshot; not tracked as changed
+    public void restore(TradeBalance balance) {
+        balances.put(balance.getTradeId(), balance);
+    }
+
+    @Nullable
+    public TradeBalance get(long tradeId) {
+        return balances.get(tradeId);
+    }
+
+    public int size() {
+        return balances.size();
+    }
+
+    /**
+     * Totals of the given trades only, in the form the calculation engines read. Costs one lookup per trade,
+     * however many payments the trades have.
+     */
+    public TradePaymentTotals totalsFor(List<Trade> trades) {
+        TradePaymentTotals totals = new TradePaymentTotals(trades.size());
+        for (Trade trade : trades) {
+            TradeBalance balance = balances.get(trade.getId());
+            if (balance != null) {
+                totals.addTotals(balance.getTradeId(), balance.getBuyerTotal(), balance.getVendorTotal(),
+                        balance.getPaymentsVersion());
+            }
+        }
+        return totals;
+    }
+
+    // Current balances of the trades changed since the previous call
+    public List<TradeBalance> drainChanged() {
+        List<TradeBalance> changed = new ArrayList<>(changedTradeIds.size());
+        for (Long tradeId : changedTradeIds) {
+            changedTradeIds.remove(tradeId);
+            changed.add(balances.get(tradeId));
+        }
+        return changed;
+    }
+
+    // Marks balances as changed again, e.g. after a snapshot that could not be stored
+    public void markChanged(Collection<TradeBalance> balances) {
+        for (TradeBalance balance : balances) {
+            changedTradeIds.add(balance.getTradeId());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.vladimirbabin.github.async_spring_practice.application.service.calculation;
+
+import com.vladimirbabin.github.async_spring_practice.domain.dto.CalculationCacheStatsDto;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import org.springframework.lang.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded LRU cache of per-trade results keyed by trade id and valid for one (trade version, payments
+ * version) pair. Split into independently locked segments so parallel calculation threads rarely contend.
+ * Cached DTOs are shared between responses and must not be modified.
+ */
+public class TradeCalculationCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long maxSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TradeCalculationCache(long maxSize) {
+        this.maxSize = maxSize;
+        long segmentSize = Math.max(1, maxSize / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    @Nullable
+    public TradeCalculationDto get(long tradeId, long tradeVersion, long paymentsVersion) {
+        Entry entry = segmentFor(tradeId).get(tradeId);
+        if (entry != null && entry.tradeVersion() == tradeVersion && entry.paymentsVersion() == paymentsVersion) {
+            hits.increment();
+            return entry.calculation();
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(long tradeId, long tradeVersion, long paymentsVersion, TradeCalculationDto calculation) {
+        segmentFor(tradeId).put(tradeId, new Entry(tradeVersion, paymentsVersion, calculation));
+    }
+
+    public CalculationCacheStatsDto getStats() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return CalculationCacheStatsDto.builder()
+                .enabled(true)
+                .size(size)
+                .maxSize(maxSize)
+                .hits(hits.sum())
+                .misses(misses.sum())
+                .evictions(evictions.sum())
+                .build();
+    }
+
+    private Segment segmentFor(long tradeId) {
+        long h = tradeId * 0x9E3779B97F4A7C15L;
+        return segments[(int) (h >>> 60)];
+    }
+
+    private record Entry(long tradeVersion, long paymentsVersion, TradeCalculationDto calculation) {
+    }
+
+    private final class Segment {
+
+        private final Map<Long, Entry> entries;
+
+        private Segment(long maxEntries) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                    if (size() > maxEntries) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        private synchronized Entry get(long tradeId) {
+            return entries.get(tradeId);
+        }
+
+        private synchronized void put(long tradeId, Entry entry) {
+            entries.put(tradeId, entry);
+        }
+
+        private synchronized int size() {
+            return entries.size();
+        }
+    }
+}
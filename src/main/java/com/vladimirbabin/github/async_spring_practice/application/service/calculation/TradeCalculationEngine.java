@@ -0,0 +1,13 @@
+package com.vladimirbabin.github.async_spring_practice.application.service.calculation;
+
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+
+/**
+ * Computes gross profit, cost of goods and balance of a single trade. Selected with
+ * {@code trade-calculation.engine} ({@code big-decimal} by default, or {@code fixed-point}).
+ */
+public interface TradeCalculationEngine {
+
+    TradeCalculationDto calculate(Trade trade, TradePaymentTotals paymentTotals);
+}
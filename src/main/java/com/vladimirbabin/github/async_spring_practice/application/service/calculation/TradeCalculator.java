@@ -0,0 +1,116 @@
+package com.vladimirbabin.github.async_spring_practice.application.service.calculation;
+
+import com.vladimirbabin.github.async_spring_practice.domain.dto.CalculationCacheStatsDto;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the {@link TradeCalculationEngine} over a list of trades. With a pool configured, lists of at least
+ * {@code parallelThreshold} trades are split into chunks computed on that pool; results keep the input order.
+ * With a cache configured, a trade is only recalculated when its row version or its payments changed.
+ */
+public class TradeCalculator implements AutoCloseable {
+
+    private final TradeCalculationEngine engine;
+    @Nullable
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+    private final int chunkSize;
+    @Nullable
+    private final TradeCalculationCache cache;
+
+    public TradeCalculator(TradeCalculationEngine engine) {
+        this(engine, null, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    public TradeCalculator(TradeCalculationEngine engine, @Nullable ForkJoinPool pool, int parallelThreshold, int chunkSize) {
+        this(engine, pool, parallelThreshold, chunkSize, null);
+    }
+
+    public TradeCalculator(TradeCalculationEngine engine, @Nullable ForkJoinPool pool, int parallelThreshold, int chunkSize,
+                           @Nullable TradeCalculationCache cache) {
+        this.engine = engine;
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.cache = cache;
+    }
+
+    public List<TradeCalculationDto> calculate(List<Trade> trades, TradePaymentTotals paymentTotals) {
+        if (pool == null || trades.size() < parallelThreshold) {
+            List<TradeCalculationDto> results = new ArrayList<>(trades.size());
+            for (Trade trade : trades) {
+                results.add(calculate(trade, paymentTotals));
+            }
+            return results;
+        }
+
+        List<Trade> indexedTrades = trades instanceof RandomAccess ? trades : new ArrayList<>(trades);
+        TradeCalculationDto[] results = new TradeCalculationDto[indexedTrades.size()];
+        pool.invoke(new CalculationTask(indexedTrades, paymentTotals, results, 0, results.length));
+        return Arrays.asList(results);
+    }
+
+    public CalculationCacheStatsDto getCacheStats() {
+        return cache != null ? cache.getStats() : CalculationCacheStatsDto.builder().enabled(false).build();
+    }
+
+    private TradeCalculationDto calculate(Trade trade, TradePaymentTotals paymentTotals) {
+        // Without a row version there is nothing to validate a cached result against
+        if (cache == null || trade.getVersion() == null) {
+            return engine.calculate(trade, paymentTotals);
+        }
+        long paymentsVersion = paymentTotals.paymentsVersion(trade.getId());
+        TradeCalculationDto calculation = cache.get(trade.getId(), trade.getVersion(), paymentsVersion);
+        if (calculation == null) {
+            calculation = engine.calculate(trade, paymentTotals);
+            cache.put(trade.getId(), trade.getVersion(), paymentsVersion, calculation);
+        }
+        return calculation;
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private final class CalculationTask extends RecursiveAction {
+
+        private final List<Trade> trades;
+        private final TradePaymentTotals paymentTotals;
+        private final TradeCalculationDto[] results;
+        private final int from;
+        private final int to;
+
+        private CalculationTask(List<Trade> trades, TradePaymentTotals paymentTotals, TradeCalculationDto[] results, int from, int to) {
+            this.trades = trades;
+            this.paymentTotals = paymentTotals;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                for (int i = from; i < to; i++) {
+                    results[i] = calculate(trades.get(i), paymentTotals);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new CalculationTask(trades, paymentTotals, results, from, middle),
+                    new CalculationTask(trades, paymentTotals, results, middle, to));
+        }
+    }
+}
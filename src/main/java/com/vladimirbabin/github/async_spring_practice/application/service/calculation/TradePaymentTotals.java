@@ -0,0 +1,252 @@
+package com.vladimirbabin.github.async_spring_practice.application.service.calculation;
+
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Buyer and vendor payment totals per trade id, built in a single pass over the payments. Trade ids are kept
+ * in an open-addressing (linear probing) table of primitive {@code long}s, so neither the ids nor the payments
+ * themselves are retained.
+ * <p>
+ * Totals are {@code long} unscaled values sharing one scale per trade. A trade whose totals overflow a
+ * {@code long} switches to {@link BigDecimal} totals. Not thread-safe while being built; safe to read from
+ * several threads once built.
+ */
+public final class TradePaymentTotals {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private boolean[] used;
+    private long[] buyerTotals;
+    private long[] vendorTotals;
+    private int[] scales;
+    private long[] paymentStamps;
+    // Allocated on the first overflow only; a non-null entry means the slot is kept in BigDecimal
+    private BigDecimal[] buyerOverflowTotals;
+    private BigDecimal[] vendorOverflowTotals;
+    private int size;
+
+    public TradePaymentTotals(int expectedTrades) {
+        allocate(capacityFor(expectedTrades));
+    }
+
+    public static TradePaymentTotals of(List<Payment> payments) {
+        // Payments usually outnumber trades several times, so this undersizes rather than oversizes the table
+        TradePaymentTotals totals = new TradePaymentTotals(payments.size() / 4);
+        for (Payment payment : payments) {
+            totals.add(payment);
+        }
+        return totals;
+    }
+
+    public void add(Payment payment) {
+        PaymentType type = payment.getType();
+        if (type != PaymentType.BUYER && type != PaymentType.VENDOR) {
+            return;
+        }
+        int slot = slotForInsert(payment.getTradeId());
+        paymentStamps[slot] += stamp(payment);
+        addAmount(slot, type, payment.getAmount());
+    }
+
+    /**
+     * Adds the already aggregated buyer and vendor totals of a trade, e.g. read from a {@link MaterializedBalances}
+     * store, instead of its individual payments.
+     */
+    public void addTotals(long tradeId, BigDecimal buyerTotal, BigDecimal vendorTotal, long paymentsVersion) {
+        int slot = slotForInsert(tradeId);
+        paymentStamps[slot] += paymentsVersion;
+        addAmount(slot, PaymentType.BUYER, buyerTotal);
+        addAmount(slot, PaymentType.VENDOR, vendorTotal);
+    }
+
+    private void addAmount(int slot, PaymentType type, BigDecimal amount) {
+        if (buyerOverflowTotals == null || buyerOverflowTotals[slot] == null) {
+            try {
+                addExact(slot, type, amount);
+                return;
+            } catch (ArithmeticException e) {
+                switchToBigDecimal(slot);
+            }
+        }
+        if (type == PaymentType.BUYER) {
+            buyerOverflowTotals[slot] = buyerOverflowTotals[slot].add(amount);
+        } else {
+            vendorOverflowTotals[slot] = vendorOverflowTotals[slot].add(amount);
+        }
+    }
+
+    /**
+     * Sum of buyer payments minus sum of vendor payments, with the scale {@code BigDecimal} arithmetic would give.
+     * {@link BigDecimal#ZERO} for a trade without payments.
+     */
+    public BigDecimal balance(long tradeId) {
+        int slot = slotOf(tradeId);
+        if (slot < 0) {
+            return BigDecimal.ZERO;
+        }
+        if (buyerOverflowTotals != null && buyerOverflowTotals[slot] != null) {
+            return buyerOverflowTotals[slot].subtract(vendorOverflowTotals[slot]);
+        }
+        try {
+            return BigDecimal.valueOf(Math.subtractExact(buyerTotals[slot], vendorTotals[slot]), scales[slot]);
+        } catch (ArithmeticException e) {
+            return BigDecimal.valueOf(buyerTotals[slot], scales[slot])
+                    .subtract(BigDecimal.valueOf(vendorTotals[slot], scales[slot]));
+        }
+    }
+
+    /**
+     * Order-independent fingerprint of the payments of a trade; changes whenever a payment is added, removed or
+     * altered. 0 for a trade without payments.
+     */
+    public long paymentsVersion(long tradeId) {
+        int slot = slotOf(tradeId);
+        return slot < 0 ? 0 : paymentStamps[slot];
+    }
+
+    public boolean contains(long tradeId) {
+        return slotOf(tradeId) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Computes into locals first so that an overflow leaves the slot untouched
+    private void addExact(int slot, PaymentType type, BigDecimal amount) {
+        long unscaled = FixedPoint.unscaled(amount);
+        long buyerTotal = buyerTotals[slot];
+        long vendorTotal = vendorTotals[slot];
+        int scale = scales[slot];
+        if (amount.scale() > scale) {
+            buyerTotal = FixedPoint.rescale(buyerTotal, amount.scale() - scale);
+            vendorTotal = FixedPoint.rescale(vendorTotal, amount.scale() - scale);
+            scale = amount.scale();
+        } else if (amount.scale() < scale) {
+            unscaled = FixedPoint.rescale(unscaled, scale - amount.scale());
+        }
+        if (type == PaymentType.BUYER) {
+            buyerTotal = Math.addExact(buyerTotal, unscaled);
+        } else {
+            vendorTotal = Math.addExact(vendorTotal, unscaled);
+        }
+        buyerTotals[slot] = buyerTotal;
+        vendorTotals[slot] = vendorTotal;
+        scales[slot] = scale;
+    }
+
+    private void switchToBigDecimal(int slot) {
+        if (buyerOverflowTotals == null) {
+            buyerOverflowTotals = new BigDecimal[keys.length];
+            vendorOverflowTotals = new BigDecimal[keys.length];
+        }
+        buyerOverflowTotals[slot] = BigDecimal.valueOf(buyerTotals[slot], scales[slot]);
+        vendorOverflowTotals[slot] = BigDecimal.valueOf(vendorTotals[slot], scales[slot]);
+    }
+
+    private int slotOf(long tradeId) {
+        int mask = keys.length - 1;
+        for (int slot = hash(tradeId) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == tradeId) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int slotForInsert(long tradeId) {
+        int mask = keys.length - 1;
+        int slot = hash(tradeId) & mask;
+        while (used[slot]) {
+            if (keys[slot] == tradeId) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size + 1 > keys.length / 2) {
+            grow();
+            return slotForInsert(tradeId);
+        }
+        used[slot] = true;
+        keys[slot] = tradeId;
+        size++;
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        long[] oldBuyerTotals = buyerTotals;
+        long[] oldVendorTotals = vendorTotals;
+        int[] oldScales = scales;
+        long[] oldPaymentStamps = paymentStamps;
+        BigDecimal[] oldBuyerOverflowTotals = buyerOverflowTotals;
+        BigDecimal[] oldVendorOverflowTotals = vendorOverflowTotals;
+
+        allocate(oldKeys.length * 2);
+        if (oldBuyerOverflowTotals != null) {
+            buyerOverflowTotals = new BigDecimal[keys.length];
+            vendorOverflowTotals = new BigDecimal[keys.length];
+        }
+        int mask = keys.length - 1;
+        for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+            if (!oldUsed[oldSlot]) {
+                continue;
+            }
+            int slot = hash(oldKeys[oldSlot]) & mask;
+            while (used[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            used[slot] = true;
+            keys[slot] = oldKeys[oldSlot];
+            buyerTotals[slot] = oldBuyerTotals[oldSlot];
+            vendorTotals[slot] = oldVendorTotals[oldSlot];
+            scales[slot] = oldScales[oldSlot];
+            paymentStamps[slot] = oldPaymentStamps[oldSlot];
+            if (oldBuyerOverflowTotals != null) {
+                buyerOverflowTotals[slot] = oldBuyerOverflowTotals[oldSlot];
+                vendorOverflowTotals[slot] = oldVendorOverflowTotals[oldSlot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        buyerTotals = new long[capacity];
+        vendorTotals = new long[capacity];
+        scales = new int[capacity];
+        paymentStamps = new long[capacity];
+        buyerOverflowTotals = null;
+        vendorOverflowTotals = null;
+    }
+
+    // Power of two that keeps the table at most half full
+    private static int capacityFor(int expectedTrades) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < 1 << 30 && capacity / 2 < expectedTrades) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    // Package-private so that MaterializedBalances keeps the same per-trade payments version
+    static long stamp(Payment payment) {
+        long id = payment.getId() != null ? payment.getId() : 0;
+        long h = id * 0x9E3779B97F4A7C15L + 31L * payment.getAmount().hashCode() + payment.getType().ordinal();
+        // MurmurHash3 finalizer, so that sums of stamps do not collide for small id changes
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
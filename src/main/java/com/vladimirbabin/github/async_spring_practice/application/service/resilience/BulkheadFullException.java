@@ -0,0 +1,8 @@
+package com.vladimirbabin.github.async_spring_practice.application.service.resilience;
+
+public class BulkheadFullException extends RuntimeException {
+
+    public BulkheadFullException(String portName, int maxConcurrentCalls) {
+        super("Port '" + portName + "' already has " + maxConcurrentCalls + " calls in flight");
+    }
+}
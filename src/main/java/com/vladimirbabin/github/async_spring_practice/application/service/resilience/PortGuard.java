@@ -0,0 +1,63 @@
+package com.vladimirbabin.github.async_spring_practice.application.service.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Deadline and bulkhead for calls to one outbound port. A call is rejected right away with
+ * {@link BulkheadFullException} when {@code maxConcurrentCalls} are already in flight, and the returned future
+ * fails with {@link java.util.concurrent.TimeoutException} after {@code timeout}. A timed-out call keeps its
+ * permit until the underlying work really finishes, so a degraded dependency cannot pile up more work.
+ * <p>
+ * A {@code maxConcurrentCalls} of zero or less disables the bulkhead and leaves only the deadline, for setups
+ * where another resource, such as the connection pool, already bounds the concurrent calls.
+ */
+public class PortGuard {
+
+    private final String portName;
+    private final int maxConcurrentCalls;
+    private final Duration timeout;
+    // null when the bulkhead is disabled
+    private final Semaphore permits;
+
+    public PortGuard(String portName, int maxConcurrentCalls, Duration timeout) {
+        this.portName = portName;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.timeout = timeout;
+        this.permits = maxConcurrentCalls > 0 ? new Semaphore(maxConcurrentCalls) : null;
+    }
+
+    public <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> portCall) {
+        if (permits == null) {
+            return withTimeout(portCall);
+        }
+        if (!permits.tryAcquire()) {
+            return CompletableFuture.failedFuture(new BulkheadFullException(portName, maxConcurrentCalls));
+        }
+        CompletableFuture<T> future;
+        try {
+            future = portCall.get();
+        } catch (RuntimeException e) {
+            permits.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((result, failure) -> permits.release());
+        // Time out a copy: completing the port's own future would release the permit too early
+        return future.copy().orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private <T> CompletableFuture<T> withTimeout(Supplier<CompletableFuture<T>> portCall) {
+        try {
+            return portCall.get().copy().orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public int getAvailablePermits() {
+        return permits != null ? permits.availablePermits() : Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,11 @@
+package com.vladimirbabin.github.async_spring_practice.application.service.resilience;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class PortGuards {
+    private final PortGuard trades;
+    private final PortGuard payments;
+}
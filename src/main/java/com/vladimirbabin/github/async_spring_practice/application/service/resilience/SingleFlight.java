@@ -0,0 +1,49 @@
+package com.vladimirbabin.github.async_spring_practice.application.service.resilience;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls: while one call is in flight, every other caller gets the same result instead of
+ * starting its own. The slot is cleared before the shared future completes, so a caller that arrives after the
+ * result is published starts a fresh call and never sees an older result than its own request.
+ */
+public class SingleFlight<T> {
+
+    private final AtomicReference<CompletableFuture<T>> inFlight = new AtomicReference<>();
+
+    public CompletableFuture<T> execute(Supplier<CompletableFuture<T>> call) {
+        while (true) {
+            CompletableFuture<T> current = inFlight.get();
+            if (current != null) {
+                // A copy, so one caller cancelling or completing its future cannot affect the others
+                return current.copy();
+            }
+            CompletableFuture<T> shared = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, shared)) {
+                start(call, shared);
+                return shared.copy();
+            }
+        }
+    }
+
+    private void start(Supplier<CompletableFuture<T>> call, CompletableFuture<T> shared) {
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            inFlight.compareAndSet(shared, null);
+            shared.completeExceptionally(e);
+            return;
+        }
+        result.whenComplete((value, failure) -> {
+            inFlight.compareAndSet(shared, null);
+            if (failure != null) {
+                shared.completeExceptionally(failure);
+            } else {
+                shared.complete(value);
+            }
+        });
+    }
+}
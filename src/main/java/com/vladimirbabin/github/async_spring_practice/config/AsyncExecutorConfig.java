@@ -0,0 +1,73 @@
+package com.vladimirbabin.github.async_spring_practice.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executors behind the async ports and Spring MVC async processing. With {@code spring.threads.virtual.enabled=true}
+ * every executor switches to one virtual thread per task and the pool settings are ignored.
+ */
+@Configuration
+@EnableConfigurationProperties(AsyncExecutorProperties.class)
+@RequiredArgsConstructor
+public class AsyncExecutorConfig implements WebMvcConfigurer {
+
+    public static final String TRADES_EXECUTOR = "tradesExecutor";
+    public static final String PAYMENTS_EXECUTOR = "paymentsExecutor";
+    public static final String INGESTION_EXECUTOR = "ingestionExecutor";
+    public static final String WEB_EXECUTOR = "webExecutor";
+
+    private final AsyncExecutorProperties properties;
+    private final Environment environment;
+
+    @Bean(TRADES_EXECUTOR)
+    public MonitoredExecutor tradesExecutor() {
+        return createExecutor(TRADES_EXECUTOR, properties.getTrades(), "trades-");
+    }
+
+    @Bean(PAYMENTS_EXECUTOR)
+    public MonitoredExecutor paymentsExecutor() {
+        return createExecutor(PAYMENTS_EXECUTOR, properties.getPayments(), "payments-");
+    }
+
+    @Bean(INGESTION_EXECUTOR)
+    public MonitoredExecutor ingestionExecutor() {
+        return createExecutor(INGESTION_EXECUTOR, properties.getIngestion(), "ingestion-");
+    }
+
+    @Bean(WEB_EXECUTOR)
+    public MonitoredExecutor webExecutor() {
+        return createExecutor(WEB_EXECUTOR, properties.getWeb(), "web-async-");
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(webExecutor());
+    }
+
+    private MonitoredExecutor createExecutor(String name, AsyncExecutorProperties.Pool pool, String defaultPrefix) {
+        String threadNamePrefix = pool.getThreadNamePrefix() != null ? pool.getThreadNamePrefix() : defaultPrefix;
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return new MonitoredVirtualThreadTaskExecutor(name, threadNamePrefix);
+        }
+
+        MonitoredThreadPoolTaskExecutor executor = new MonitoredThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pool.getCorePoolSize());
+        executor.setMaxPoolSize(pool.getMaxPoolSize());
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setRejectedExecutionHandler(switch (pool.getRejectionPolicy()) {
+            case ABORT -> new ThreadPoolExecutor.AbortPolicy();
+            case CALLER_RUNS -> new ThreadPoolExecutor.CallerRunsPolicy();
+        });
+        return executor;
+    }
+}
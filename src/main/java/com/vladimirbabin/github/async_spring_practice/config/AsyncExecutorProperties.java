@@ -0,0 +1,30 @@
+package com.vladimirbabin.github.async_spring_practice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "async.executors")
+public class AsyncExecutorProperties {
+
+    private Pool trades = new Pool();
+    private Pool payments = new Pool();
+    // Writes payment batches; kept small so ingestion cannot take over the connection pool
+    private Pool ingestion = new Pool();
+    // Runs Spring MVC async work such as StreamingResponseBody
+    private Pool web = new Pool();
+
+    @Data
+    public static class Pool {
+        private int corePoolSize = 2;
+        private int maxPoolSize = 4;
+        private int queueCapacity = 100;
+        private String threadNamePrefix;
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.CALLER_RUNS;
+    }
+
+    public enum RejectionPolicy {
+        ABORT,
+        CALLER_RUNS
+    }
+}
@@ -0,0 +1,24 @@
+package com.vladimirbabin.github.async_spring_practice.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder executorMetrics(List<MonitoredExecutor> executors) {
+        return registry -> executors.forEach(executor -> {
+            Gauge.builder("dashboard.executor.queue.depth", executor, MonitoredExecutor::getQueueDepth)
+                    .tag("executor", executor.getExecutorName())
+                    .register(registry);
+            Gauge.builder("dashboard.executor.active.tasks", executor, MonitoredExecutor::getActiveTasks)
+                    .tag("executor", executor.getExecutorName())
+                    .register(registry);
+        });
+    }
+}
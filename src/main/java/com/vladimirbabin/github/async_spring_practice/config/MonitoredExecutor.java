@@ -0,0 +1,15 @@
+package com.vladimirbabin.github.async_spring_practice.config;
+
+import com.vladimirbabin.github.async_spring_practice.domain.dto.ExecutorStatsDto;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+public interface MonitoredExecutor extends AsyncTaskExecutor {
+    String getExecutorName();
+
+    // Tasks waiting for a thread; always 0 for executors without a queue
+    int getQueueDepth();
+
+    int getActiveTasks();
+
+    ExecutorStatsDto getStats();
+}
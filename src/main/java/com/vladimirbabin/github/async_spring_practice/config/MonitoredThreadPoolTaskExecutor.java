@@ -0,0 +1,131 @@
+package com.vladimirbabin.github.async_spring_practice.config;
+
+import com.vladimirbabin.github.async_spring_practice.domain.dto.ExecutorStatsDto;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.ExecutorThreadDto;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link ThreadPoolTaskExecutor} that remembers the threads it created and which of them are currently running
+ * a task, so the pool can be inspected at runtime.
+ */
+public class MonitoredThreadPoolTaskExecutor extends ThreadPoolTaskExecutor implements MonitoredExecutor {
+
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final Set<Thread> busyThreads = ConcurrentHashMap.newKeySet();
+    private final LongAdder rejectedTasks = new LongAdder();
+    private String name;
+
+    public MonitoredThreadPoolTaskExecutor() {
+        setTaskDecorator(this::trackBusyThread);
+        setRejectedExecutionHandler(null);
+    }
+
+    @Override
+    public void setBeanName(String name) {
+        super.setBeanName(name);
+        this.name = name;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = super.newThread(runnable);
+        threads.add(thread);
+        return thread;
+    }
+
+    @Override
+    public void setRejectedExecutionHandler(@Nullable RejectedExecutionHandler rejectedExecutionHandler) {
+        RejectedExecutionHandler delegate = rejectedExecutionHandler != null
+                ? rejectedExecutionHandler
+                : new ThreadPoolExecutor.AbortPolicy();
+        super.setRejectedExecutionHandler((task, executor) -> {
+            rejectedTasks.increment();
+            delegate.rejectedExecution(task, executor);
+        });
+    }
+
+    @Override
+    public String getExecutorName() {
+        return name;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return getQueueSize();
+    }
+
+    @Override
+    public int getActiveTasks() {
+        return busyThreads.size();
+    }
+
+    @Override
+    public ExecutorStatsDto getStats() {
+        threads.removeIf(thread -> !thread.isAlive());
+        List<ExecutorThreadDto> threadStats = threads.stream()
+                .sorted(Comparator.comparing(Thread::getName))
+                .map(this::toThreadStats)
+                .toList();
+        ThreadPoolExecutor pool = getThreadPoolExecutor();
+
+        return ExecutorStatsDto.builder()
+                .name(name)
+                .threadNamePrefix(getThreadNamePrefix())
+                .corePoolSize(getCorePoolSize())
+                .maxPoolSize(getMaxPoolSize())
+                .poolSize(pool.getPoolSize())
+                .activeThreads(count(threadStats, ExecutorThreadDto.Activity.ACTIVE))
+                .blockedThreads(count(threadStats, ExecutorThreadDto.Activity.BLOCKED))
+                .idleThreads(count(threadStats, ExecutorThreadDto.Activity.IDLE))
+                .queueDepth(pool.getQueue().size())
+                .queueCapacity(getQueueCapacity())
+                .completedTasks(pool.getCompletedTaskCount())
+                .rejectedTasks(rejectedTasks.sum())
+                .threads(threadStats)
+                .build();
+    }
+
+    private Runnable trackBusyThread(Runnable task) {
+        return () -> {
+            Thread current = Thread.currentThread();
+            busyThreads.add(current);
+            try {
+                task.run();
+            } finally {
+                busyThreads.remove(current);
+            }
+        };
+    }
+
+    private ExecutorThreadDto toThreadStats(Thread thread) {
+        Thread.State state = thread.getState();
+        ExecutorThreadDto.Activity activity;
+        if (!busyThreads.contains(thread)) {
+            activity = ExecutorThreadDto.Activity.IDLE;
+        } else if (state == Thread.State.RUNNABLE) {
+            activity = ExecutorThreadDto.Activity.ACTIVE;
+        } else {
+            activity = ExecutorThreadDto.Activity.BLOCKED;
+        }
+        return ExecutorThreadDto.builder()
+                .name(thread.getName())
+                .state(state)
+                .activity(activity)
+                .build();
+    }
+
+    private static int count(List<ExecutorThreadDto> threads, ExecutorThreadDto.Activity activity) {
+        return (int) threads.stream()
+                .filter(thread -> thread.getActivity() == activity)
+                .count();
+    }
+}
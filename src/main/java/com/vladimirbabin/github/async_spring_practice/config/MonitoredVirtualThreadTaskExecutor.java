@@ -0,0 +1,85 @@
+package com.vladimirbabin.github.async_spring_practice.config;
+
+import com.vladimirbabin.github.async_spring_practice.domain.dto.ExecutorStatsDto;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.ExecutorThreadDto;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Starts one virtual thread per task. There is no pool and no queue: blocking calls park the virtual thread
+ * instead of holding a carrier, so downstream resources (the Hikari pool for the trades port) are the only
+ * concurrency limit.
+ */
+public class MonitoredVirtualThreadTaskExecutor extends SimpleAsyncTaskExecutor implements MonitoredExecutor {
+
+    private final String name;
+    private final Set<Thread> runningThreads = ConcurrentHashMap.newKeySet();
+    private final LongAdder completedTasks = new LongAdder();
+
+    public MonitoredVirtualThreadTaskExecutor(String name, String threadNamePrefix) {
+        super(threadNamePrefix);
+        this.name = name;
+        setVirtualThreads(true);
+        setTaskDecorator(this::trackRunningThread);
+    }
+
+    @Override
+    public String getExecutorName() {
+        return name;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return 0;
+    }
+
+    @Override
+    public int getActiveTasks() {
+        return runningThreads.size();
+    }
+
+    @Override
+    public ExecutorStatsDto getStats() {
+        List<ExecutorThreadDto> threadStats = runningThreads.stream()
+                .sorted(Comparator.comparing(Thread::getName))
+                .map(thread -> ExecutorThreadDto.builder()
+                        .name(thread.getName())
+                        .state(thread.getState())
+                        .activity(thread.getState() == Thread.State.RUNNABLE
+                                ? ExecutorThreadDto.Activity.ACTIVE
+                                : ExecutorThreadDto.Activity.BLOCKED)
+                        .build())
+                .toList();
+        int active = (int) threadStats.stream()
+                .filter(thread -> thread.getActivity() == ExecutorThreadDto.Activity.ACTIVE)
+                .count();
+
+        return ExecutorStatsDto.builder()
+                .name(name)
+                .threadNamePrefix(getThreadNamePrefix())
+                .poolSize(threadStats.size())
+                .activeThreads(active)
+                .blockedThreads(threadStats.size() - active)
+                .completedTasks(completedTasks.sum())
+                .threads(threadStats)
+                .build();
+    }
+
+    private Runnable trackRunningThread(Runnable task) {
+        return () -> {
+            Thread current = Thread.currentThread();
+            runningThreads.add(current);
+            try {
+                task.run();
+            } finally {
+                runningThreads.remove(current);
+                completedTasks.increment();
+            }
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package com.vladimirbabin.github.async_spring_practice.config;
+
+import com.vladimirbabin.github.async_spring_practice.adapters.in.web.TimedMappingJackson2CborHttpMessageConverter;
+import com.vladimirbabin.github.async_spring_practice.adapters.in.web.TimedMappingJackson2HttpMessageConverter;
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.DashboardMetricsPort;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@Configuration
+public class SerializationConfig {
+
+    // Replaces Boot's default Jackson converter, so dashboard JSON bodies are timed
+    @Bean
+    public TimedMappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                                                         DashboardMetricsPort dashboardMetrics) {
+        return new TimedMappingJackson2HttpMessageConverter(objectMapper, dashboardMetrics);
+    }
+
+    // Accept: application/cbor; the builder carries the same customizations as the JSON ObjectMapper
+    @Bean
+    public TimedMappingJackson2CborHttpMessageConverter mappingJackson2CborHttpMessageConverter(
+            Jackson2ObjectMapperBuilder objectMapperBuilder, DashboardMetricsPort dashboardMetrics) {
+        ObjectMapper cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+        return new TimedMappingJackson2CborHttpMessageConverter(cborMapper, dashboardMetrics);
+    }
+}
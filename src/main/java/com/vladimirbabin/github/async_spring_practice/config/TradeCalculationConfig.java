@@ -0,0 +1,80 @@
+package com.vladimirbabin.github.async_spring_practice.config;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.GetTradesPort;
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.StreamPaymentsPort;
+import com.vladimirbabin.github.async_spring_practice.application.service.MergeJoinTradeCalculator;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.ExternalPaymentSorter;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradeCalculationCache;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradeCalculationEngine;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradeCalculator;
+import com.vladimirbabin.github.async_spring_practice.application.service.resilience.PortGuard;
+import com.vladimirbabin.github.async_spring_practice.application.service.resilience.PortGuards;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@EnableConfigurationProperties(TradeCalculationProperties.class)
+public class TradeCalculationConfig {
+
+    private static final String CALCULATION_THREAD_PREFIX = "trade-calc-";
+
+    @Bean
+    public TradeCalculator tradeCalculator(TradeCalculationEngine engine, TradeCalculationProperties properties) {
+        TradeCalculationProperties.Parallel parallel = properties.getParallel();
+        TradeCalculationCache cache = properties.getCache().isEnabled()
+                ? new TradeCalculationCache(properties.getCache().getMaxSize())
+                : null;
+        if (!parallel.isEnabled()) {
+            return new TradeCalculator(engine, null, Integer.MAX_VALUE, Integer.MAX_VALUE, cache);
+        }
+        return new TradeCalculator(engine, createPool(parallel.getParallelism()), parallel.getThreshold(),
+                parallel.getChunkSize(), cache);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "trade-calculation.join.mode", havingValue = "merge")
+    public MergeJoinTradeCalculator mergeJoinTradeCalculator(GetTradesPort getTradesPort,
+                                                             StreamPaymentsPort streamPaymentsPort,
+                                                             TradeCalculator tradeCalculator,
+                                                             PortGuards portGuards,
+                                                             TradeCalculationProperties properties,
+                                                             @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize) {
+        TradeCalculationProperties.Join join = properties.getJoin();
+        // Every merge holds a connection for its payments cursor and needs another one for its trades pages
+        if (join.getMaxConcurrentStreams() >= maximumPoolSize) {
+            throw new IllegalStateException("trade-calculation.join.max-concurrent-streams ("
+                    + join.getMaxConcurrentStreams() + ") must be below the connection pool size (" + maximumPoolSize + ")");
+        }
+        return new MergeJoinTradeCalculator(getTradesPort, streamPaymentsPort, tradeCalculator,
+                new ExternalPaymentSorter(join.getSortRunSize(), join.getSpillDirectory()), portGuards.getTrades(),
+                join.getMaxConcurrentStreams());
+    }
+
+    @Bean
+    public PortGuards portGuards(TradeCalculationProperties properties) {
+        TradeCalculationProperties.Resilience resilience = properties.getResilience();
+        return new PortGuards(createGuard("trades", resilience.getTrades()), createGuard("payments", resilience.getPayments()));
+    }
+
+    private static PortGuard createGuard(String portName, TradeCalculationProperties.Port port) {
+        return new PortGuard(portName, port.getMaxConcurrentCalls(), port.getTimeout());
+    }
+
+    // Dedicated pool, not the common one; maximumPoolSize = parallelism so it never adds compensating threads
+    private static ForkJoinPool createPool(int parallelism) {
+        ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(CALCULATION_THREAD_PREFIX + thread.getPoolIndex());
+            return thread;
+        };
+        return new ForkJoinPool(parallelism, threadFactory, null, false,
+                parallelism, parallelism, 1, null, 60, TimeUnit.SECONDS);
+    }
+}
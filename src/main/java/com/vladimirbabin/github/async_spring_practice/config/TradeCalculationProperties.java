@@ -0,0 +1,83 @@
+package com.vladimirbabin.github.async_spring_practice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "trade-calculation")
+public class TradeCalculationProperties {
+
+    // big-decimal | fixed-point, read by the engines' @ConditionalOnProperty
+    private String engine = "big-decimal";
+    private Parallel parallel = new Parallel();
+    private Cache cache = new Cache();
+    private Resilience resilience = new Resilience();
+    private Join join = new Join();
+    private Balances balances = new Balances();
+    private Warmup warmup = new Warmup();
+
+    @Data
+    public static class Parallel {
+        private boolean enabled = false;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        // Trade lists smaller than this are calculated on the calling thread
+        private int threshold = 50_000;
+        private int chunkSize = 5_000;
+    }
+
+    @Data
+    public static class Cache {
+        private boolean enabled = false;
+        // Number of per-trade results kept; least recently used ones are evicted first
+        private long maxSize = 500_000;
+    }
+
+    @Data
+    public static class Resilience {
+        private Port trades = new Port();
+        private Port payments = new Port();
+    }
+
+    @Data
+    public static class Port {
+        private Duration timeout = Duration.ofSeconds(5);
+        // Calls beyond this fail fast with 503; 0 or less disables the bulkhead
+        private int maxConcurrentCalls = 8;
+    }
+
+    @Data
+    public static class Join {
+        // paged (one payments query per page of trades) | merge (one sorted pass over all payments)
+        private String mode = "paged";
+        // Payments held on the heap while sorting an unsorted payment source; full runs are spilled to disk
+        private int sortRunSize = 1_000_000;
+        private Path spillDirectory = Path.of(System.getProperty("java.io.tmpdir"));
+        // Merges holding a payments cursor at once; must stay below the connection pool size
+        private int maxConcurrentStreams = 4;
+    }
+
+    @Data
+    public static class Balances {
+        // payments (totals rebuilt from the payments on every request) | materialized (kept up to date incrementally)
+        private String source = "payments";
+        // Payments read from the payments table per catch-up query
+        private int catchUpBatchSize = 10_000;
+        // Ids below the catch-up position that are re-read while they have gaps, for payments that commit late
+        private long lateCommitLookback = 10_000;
+        // ISO-8601, also read by the @Scheduled methods of MaterializedBalanceService
+        private Duration catchUpInterval = Duration.ofSeconds(1);
+        private Duration snapshotInterval = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Warmup {
+        // Runs the calculation on synthetic data at startup, before the application reports ready
+        private boolean enabled = false;
+        private int iterations = 30;
+        private int trades = 20_000;
+        private int maxPaymentsPerTrade = 4;
+    }
+}
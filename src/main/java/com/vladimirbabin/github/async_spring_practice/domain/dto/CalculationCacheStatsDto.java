@@ -0,0 +1,15 @@
+package com.vladimirbabin.github.async_spring_practice.domain.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CalculationCacheStatsDto {
+    private boolean enabled;
+    private long size;
+    private long maxSize;
+    private long hits;
+    private long misses;
+    private long evictions;
+}
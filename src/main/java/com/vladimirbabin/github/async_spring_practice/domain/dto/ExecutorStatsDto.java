@@ -0,0 +1,24 @@
+package com.vladimirbabin.github.async_spring_practice.domain.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ExecutorStatsDto {
+    private String name;
+    private String threadNamePrefix;
+    private int corePoolSize;
+    private int maxPoolSize;
+    private int poolSize;
+    private int activeThreads;
+    private int blockedThreads;
+    private int idleThreads;
+    private int queueDepth;
+    private int queueCapacity;
+    private long completedTasks;
+    private long rejectedTasks;
+    private List<ExecutorThreadDto> threads;
+}
@@ -0,0 +1,21 @@
+package com.vladimirbabin.github.async_spring_practice.domain.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ExecutorThreadDto {
+    private String name;
+    private Thread.State state;
+    private Activity activity;
+
+    public enum Activity {
+        // Running a task and on CPU (or in native I/O, which the JVM also reports as RUNNABLE)
+        ACTIVE,
+        // Running a task but parked on a monitor, lock or wait
+        BLOCKED,
+        // Waiting for the next task from the queue
+        IDLE
+    }
+}
@@ -0,0 +1,12 @@
+package com.vladimirbabin.github.async_spring_practice.domain.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class PaymentIngestionResultDto {
+    private int rows;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+}
@@ -0,0 +1,14 @@
+package com.vladimirbabin.github.async_spring_practice.domain.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class TradeCalculationPageDto {
+    private List<TradeCalculationDto> calculations;
+    // Cursor for the next page (last tradeId of this page), null when there are no more trades
+    private Long nextAfter;
+}
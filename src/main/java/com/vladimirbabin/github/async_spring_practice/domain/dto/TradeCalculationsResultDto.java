@@ -0,0 +1,20 @@
+package com.vladimirbabin.github.async_spring_practice.domain.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder(toBuilder = true)
+public class TradeCalculationsResultDto {
+    private List<TradeCalculationDto> calculations;
+    private Instant calculatedAt;
+    // Version of the trades and payments the calculations were made from; null when it is unknown
+    private Long dataVersion;
+    // Last good result served because a port failed or timed out
+    private boolean stale;
+    // Payments were unavailable: balances are missing (null)
+    private boolean partial;
+}
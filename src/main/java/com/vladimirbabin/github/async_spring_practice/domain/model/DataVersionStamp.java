@@ -0,0 +1,29 @@
+package com.vladimirbabin.github.async_spring_practice.domain.model;
+
+/**
+ * Folds cheap aggregates of a table (row count, max id, sum of row versions) into one long that changes whenever
+ * a row is inserted, deleted or updated. Also combines the stamps of several tables into one data version.
+ */
+public final class DataVersionStamp {
+
+    private DataVersionStamp() {
+    }
+
+    public static long of(long... aggregates) {
+        long stamp = 17;
+        for (long aggregate : aggregates) {
+            stamp = mix(stamp * 31 + aggregate);
+        }
+        return stamp;
+    }
+
+    // MurmurHash3 finalizer
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
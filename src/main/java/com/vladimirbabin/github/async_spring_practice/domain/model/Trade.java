@@ -15,5 +15,10 @@ public class Trade {
     private int productQuantity;
     private BigDecimal productBuyingPrice;
     private BigDecimal productSellingPrice;
+    // Row version, incremented on every update of the trade
+    private Long version;
+    // quantity * buying/selling price when already computed by the data source, null otherwise
+    private BigDecimal precomputedGrossProfit;
+    private BigDecimal precomputedCostOfGoods;
     // TODO: add createdDate
 }
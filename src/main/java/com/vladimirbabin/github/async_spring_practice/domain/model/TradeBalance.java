@@ -0,0 +1,17 @@
+package com.vladimirbabin.github.async_spring_practice.domain.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+// Running buyer and vendor payment totals of one trade; replaced, never modified, once stored
+@Data
+@Builder
+public class TradeBalance {
+    private long tradeId;
+    private BigDecimal buyerTotal;
+    private BigDecimal vendorTotal;
+    // Sum of the payment stamps, the same per-trade payments version TradePaymentTotals computes
+    private long paymentsVersion;
+}
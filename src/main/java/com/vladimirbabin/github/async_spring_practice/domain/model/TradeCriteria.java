@@ -0,0 +1,20 @@
+package com.vladimirbabin.github.async_spring_practice.domain.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+// Filter on trades; null fields match every trade, the trade id range is inclusive
+@Data
+@Builder
+public class TradeCriteria {
+    private Long buyingAccountId;
+    private Long vendorAccountId;
+    private String productName;
+    private Long fromTradeId;
+    private Long toTradeId;
+
+    public boolean matchesAll() {
+        return buyingAccountId == null && vendorAccountId == null && productName == null
+                && fromTradeId == null && toTradeId == null;
+    }
+}
@@ -0,0 +1,2 @@
+-- Optimistic-locking row version, bumped by JPA on every update; used to invalidate cached calculations
+ALTER TABLE trades ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,11 @@
+-- No foreign key to trades: settlement payments may arrive before their trade is booked
+CREATE TABLE payments (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    trade_id BIGINT NOT NULL,
+    type VARCHAR(16) NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    payment_date DATE NOT NULL
+);
+
+CREATE INDEX idx_payments_trade_id ON payments (trade_id);
@@ -0,0 +1,15 @@
+-- Snapshot of the materialized per-trade balances (trade-calculation.balances.source=materialized)
+CREATE TABLE trade_balances (
+    trade_id BIGINT PRIMARY KEY,
+    buyer_total DECIMAL(38, 2) NOT NULL,
+    vendor_total DECIMAL(38, 2) NOT NULL,
+    payments_version BIGINT NOT NULL
+);
+
+-- Single row: the id of the last payment included in trade_balances
+CREATE TABLE trade_balances_watermark (
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    last_payment_id BIGINT NOT NULL
+);
+
+INSERT INTO trade_balances_watermark (id, last_payment_id) VALUES (1, 0);
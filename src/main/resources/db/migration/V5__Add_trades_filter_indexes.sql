@@ -0,0 +1,4 @@
+-- Filtered dashboard queries: equality on the criteria column, keyset order on id
+CREATE INDEX idx_trades_buying_account_id ON trades (buying_account_id, id);
+CREATE INDEX idx_trades_vendor_account_id ON trades (vendor_account_id, id);
+CREATE INDEX idx_trades_product_name ON trades (product_name, id);
@@ -0,0 +1,57 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.in.web;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.in.IngestPaymentsUseCase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = PaymentIngestionController.class, properties = "payments.source=jdbc")
+class PaymentIngestionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private IngestPaymentsUseCase ingestPaymentsUseCase;
+
+    @Test
+    void rejectsCurrencyLongerThanColumn() throws Exception {
+        mockMvc.perform(post("/api/v1/payments/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [
+                                    {"tradeId":1,"type":"BUYER","amount":10.00,"currency":"USD","paymentDate":"2024-01-02"},
+                                    {"tradeId":2,"type":"BUYER","amount":10.00,"currency":"USDT","paymentDate":"2024-01-02"}
+                                ]
+                                """))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason(containsString("indexes [1]")));
+        verify(ingestPaymentsUseCase, never()).ingestPayments(anyList());
+    }
+
+    @Test
+    void rejectsAmountWithMoreThanTwoDecimals() throws Exception {
+        mockMvc.perform(post("/api/v1/payments/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [
+                                    {"tradeId":1,"type":"VENDOR","amount":10.125,"currency":"EUR","paymentDate":"2024-01-02"},
+                                    {"tradeId":2,"type":"VENDOR","amount":10.500,"currency":"EUR","paymentDate":"2024-01-02"},
+                                    {"tradeId":3,"type":"VENDOR","amount":0.001,"currency":"EUR","paymentDate":"2024-01-02"}
+                                ]
+                                """))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason(containsString("indexes [0, 2]")));
+        verify(ingestPaymentsUseCase, never()).ingestPayments(anyList());
+    }
+}
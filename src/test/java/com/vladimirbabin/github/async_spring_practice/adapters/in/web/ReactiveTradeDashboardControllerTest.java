@@ -0,0 +1,34 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.in.web;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.in.ReactiveTradeCalculationUseCase;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ReactiveTradeDashboardControllerTest {
+
+    private final ReactiveTradeCalculationUseCase useCase = mock(ReactiveTradeCalculationUseCase.class);
+    private final ReactiveTradeDashboardController controller = new ReactiveTradeDashboardController(useCase);
+
+    @Test
+    void rejectsTradeFiltersInsteadOfStreamingWholeBook() {
+        // Given
+        TradeCriteriaRequest criteria = new TradeCriteriaRequest();
+        criteria.setBuyingAccountId(7L);
+
+        // When
+        ResponseStatusException failure = assertThrows(ResponseStatusException.class,
+                () -> controller.streamTradeCalculations(1000, criteria));
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, failure.getStatusCode());
+        verify(useCase, never()).streamTradeCalculations(anyInt());
+    }
+}
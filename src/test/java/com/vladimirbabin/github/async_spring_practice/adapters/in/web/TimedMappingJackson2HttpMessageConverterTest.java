@@ -0,0 +1,56 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.in.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vladimirbabin.github.async_spring_practice.adapters.out.metrics.MicrometerDashboardMetrics;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.PaymentIngestionResultDto;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TimedMappingJackson2HttpMessageConverterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TimedMappingJackson2HttpMessageConverter converter =
+            new TimedMappingJackson2HttpMessageConverter(new ObjectMapper(), new MicrometerDashboardMetrics(meterRegistry));
+
+    @Test
+    void timesDashboardPayloads() throws Exception {
+        // Given
+        TradeCalculationDto dto = TradeCalculationDto.builder().tradeId(1L).balance(BigDecimal.ONE).build();
+
+        // When
+        converter.write(List.of(dto), new ParameterizedTypeReference<List<TradeCalculationDto>>() { }.getType(),
+                MediaType.APPLICATION_JSON, new MockHttpOutputMessage());
+        converter.write(List.of(), new ParameterizedTypeReference<List<TradeCalculationDto>>() { }.getType(),
+                MediaType.APPLICATION_JSON, new MockHttpOutputMessage());
+
+        // Then
+        assertEquals(2, serializationTimer().count());
+    }
+
+    @Test
+    void writesOtherBodiesUntimed() throws Exception {
+        // When
+        converter.write(PaymentIngestionResultDto.builder().build(), PaymentIngestionResultDto.class,
+                MediaType.APPLICATION_JSON, new MockHttpOutputMessage());
+        converter.write(List.of("executor"), new ParameterizedTypeReference<List<String>>() { }.getType(),
+                MediaType.APPLICATION_JSON, new MockHttpOutputMessage());
+
+        // Then
+        assertNull(meterRegistry.find("dashboard.serialization").timer());
+    }
+
+    private Timer serializationTimer() {
+        return meterRegistry.get("dashboard.serialization").tag("format", "json").timer();
+    }
+}
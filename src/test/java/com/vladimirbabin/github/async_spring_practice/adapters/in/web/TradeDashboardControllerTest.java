@@ -1,22 +1,41 @@
 package com.vladimirbabin.github.async_spring_practice.adapters.in.web;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import com.vladimirbabin.github.async_spring_practice.application.ports.in.TradeCalculationUseCase;
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.DashboardMetricsPort;
 import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationPageDto;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationsResultDto;
+import com.vladimirbabin.github.async_spring_practice.domain.model.TradeCriteria;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(TradeDashboardController.class)
@@ -28,6 +47,9 @@ class TradeDashboardControllerTest {
     @MockBean
     private TradeCalculationUseCase tradeCalculationUseCase;
 
+    @MockBean
+    private DashboardMetricsPort dashboardMetrics;
+
     @Test
     void getTradeCalculations() throws Exception {
         // Given
@@ -35,7 +57,8 @@ class TradeDashboardControllerTest {
         TradeCalculationDto dto2 = TradeCalculationDto.builder().tradeId(2L).grossProfit(BigDecimal.valueOf(1000)).costOfGoods(BigDecimal.valueOf(1250)).balance(BigDecimal.valueOf(-250)).build();
         List<TradeCalculationDto> dtos = List.of(dto1, dto2);
 
-        when(tradeCalculationUseCase.getTradeCalculations()).thenReturn(CompletableFuture.completedFuture(dtos));
+        when(tradeCalculationUseCase.getTradeCalculations()).thenReturn(CompletableFuture.completedFuture(
+                TradeCalculationsResultDto.builder().calculations(dtos).build()));
 
         // When
         MvcResult mvcResult = mockMvc.perform(get("/api/v1/dashboards/trade-calculations"))
@@ -52,4 +75,366 @@ class TradeDashboardControllerTest {
                         ]
                         """));
     }
+
+    @Test
+    void getTradeCalculationsFlagsStaleResult() throws Exception {
+        // Given
+        TradeCalculationDto dto = TradeCalculationDto.builder().tradeId(1L).grossProfit(BigDecimal.valueOf(1000)).costOfGoods(BigDecimal.valueOf(1500)).balance(BigDecimal.valueOf(500)).build();
+
+        when(tradeCalculationUseCase.getTradeCalculations()).thenReturn(CompletableFuture.completedFuture(
+                TradeCalculationsResultDto.builder().calculations(List.of(dto)).calculatedAt(Instant.now()).stale(true).build()));
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/dashboards/trade-calculations"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string(TradeDashboardController.STALE_HEADER, "true"))
+                .andExpect(header().doesNotExist(TradeDashboardController.PARTIAL_HEADER))
+                .andExpect(header().exists("Last-Modified"));
+    }
+
+    @Test
+    void getTradeCalculationsSetsETagFromDataVersion() throws Exception {
+        // Given
+        TradeCalculationDto dto = TradeCalculationDto.builder().tradeId(1L).grossProfit(BigDecimal.valueOf(1000)).costOfGoods(BigDecimal.valueOf(1500)).balance(BigDecimal.valueOf(500)).build();
+
+        when(tradeCalculationUseCase.getTradeCalculations()).thenReturn(CompletableFuture.completedFuture(
+                TradeCalculationsResultDto.builder().calculations(List.of(dto)).dataVersion(255L).build()));
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/dashboards/trade-calculations"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"ff\""))
+                .andExpect(header().string(HttpHeaders.VARY, "Accept"));
+    }
+
+    @Test
+    void getTradeCalculationsSetsDistinctETagForCbor() throws Exception {
+        // Given
+        TradeCalculationDto dto = TradeCalculationDto.builder().tradeId(1L).grossProfit(BigDecimal.valueOf(1000)).costOfGoods(BigDecimal.valueOf(1500)).balance(BigDecimal.valueOf(500)).build();
+
+        when(tradeCalculationUseCase.getTradeCalculations()).thenReturn(CompletableFuture.completedFuture(
+                TradeCalculationsResultDto.builder().calculations(List.of(dto)).dataVersion(255L).build()));
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/dashboards/trade-calculations").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("ETag", "\"ff-cbor\""))
+                .andExpect(header().string(HttpHeaders.VARY, "Accept"));
+    }
+
+    @Test
+    void getTradeCalculationsDoesNotMatchJsonETagForCbor() throws Exception {
+        // Given
+        TradeCalculationDto dto = TradeCalculationDto.builder().tradeId(1L).grossProfit(BigDecimal.valueOf(1000)).costOfGoods(BigDecimal.valueOf(1500)).balance(BigDecimal.valueOf(500)).build();
+
+        when(tradeCalculationUseCase.getDataVersion()).thenReturn(CompletableFuture.completedFuture(255L));
+        when(tradeCalculationUseCase.getTradeCalculations()).thenReturn(CompletableFuture.completedFuture(
+                TradeCalculationsResultDto.builder().calculations(List.of(dto)).dataVersion(255L).build()));
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/dashboards/trade-calculations")
+                        .header("If-None-Match", "\"ff\"")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"ff-cbor\""));
+    }
+
+    @Test
+    void getTradeCalculationsReturnsNotModifiedWhenETagMatches() throws Exception {
+        // Given
+        when(tradeCalculationUseCase.getDataVersion()).thenReturn(CompletableFuture.completedFuture(255L));
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/dashboards/trade-calculations")
+                        .header("If-None-Match", "\"aa\", W/\"ff\""))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"ff\""));
+        verify(tradeCalculationUseCase, never()).getTradeCalculations();
+    }
+
+    @Test
+    void getTradeCalculationsReturnsServiceUnavailableOnTimeout() throws Exception {
+        // Given
+        when(tradeCalculationUseCase.getTradeCalculations()).thenReturn(CompletableFuture.failedFuture(new TimeoutException()));
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/dashboards/trade-calculations"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void getTradeCalculationsWithCriteria() throws Exception {
+        // Given
+        TradeCalculationDto dto = TradeCalculationDto.builder().tradeId(3L).grossProfit(BigDecimal.valueOf(10)).costOfGoods(BigDecimal.valueOf(5)).balance(BigDecimal.ONE).build();
+        TradeCriteria criteria = TradeCriteria.builder().vendorAccountId(42L).fromTradeId(1L).toTradeId(9L).build();
+
+        when(tradeCalculationUseCase.getTradeCalculations(criteria)).thenReturn(CompletableFuture.completedFuture(List.of(dto)));
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/dashboards/trade-calculations")
+                        .param("vendorAccountId", "42").param("fromTradeId", "1").param("toTradeId", "9"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"tradeId\":3,\"balance\":1}]"));
+        verify(tradeCalculationUseCase, never()).getTradeCalculations();
+    }
+
+    @Test
+    void getTradeCalculationsRejectsInvertedTradeIdRange() throws Exception {
+        mockMvc.perform(get("/api/v1/dashboards/trade-calculations").param("fromTradeId", "9").param("toTradeId", "1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getTradeCalculationsPage() throws Exception {
+        // Given
+        TradeCalculationDto dto = TradeCalculationDto.builder().tradeId(2L).grossProfit(BigDecimal.valueOf(1000)).costOfGoods(BigDecimal.valueOf(1250)).balance(BigDecimal.valueOf(-250)).build();
+        TradeCalculationPageDto page = TradeCalculationPageDto.builder().calculations(List.of(dto)).nextAfter(2L).build();
+
+        when(tradeCalculationUseCase.getTradeCalculationsPage(1L, 1)).thenReturn(CompletableFuture.completedFuture(page));
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/dashboards/trade-calculations").param("after", "1").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        {
+                            "calculations":[{"tradeId":2,"grossProfit":1000,"costOfGoods":1250,"balance":-250}],
+                            "nextAfter":2
+                        }
+                        """));
+    }
+
+    @Test
+    void getTradeCalculationsPageRejectsInvalidLimit() throws Exception {
+        mockMvc.perform(get("/api/v1/dashboards/trade-calculations").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamTradeCalculations() throws Exception {
+        // Given
+        TradeCalculationDto dto1 = TradeCalculationDto.builder().tradeId(1L).grossProfit(BigDecimal.valueOf(1000)).costOfGoods(BigDecimal.valueOf(1500)).balance(BigDecimal.valueOf(500)).build();
+        TradeCalculationDto dto2 = TradeCalculationDto.builder().tradeId(2L).grossProfit(BigDecimal.valueOf(1000)).costOfGoods(BigDecimal.valueOf(1250)).balance(BigDecimal.valueOf(-250)).build();
+
+        doAnswer(invocation -> {
+            Consumer<List<TradeCalculationDto>> consumer = invocation.getArgument(1);
+            consumer.accept(List.of(dto1));
+            consumer.accept(List.of(dto2));
+            return null;
+        }).when(tradeCalculationUseCase).streamTradeCalculations(eq(1), any());
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/dashboards/trade-calculations/stream").param("chunkSize", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"tradeId\":1,\"grossProfit\":1000,\"costOfGoods\":1500,\"balance\":500}\n"
+                                + "{\"tradeId\":2,\"grossProfit\":1000,\"costOfGoods\":1250,\"balance\":-250}\n"));
+    }
+
+    @Test
+    void streamTradeCalculationsWithCriteria() throws Exception {
+        // Given
+        TradeCalculationDto dto = TradeCalculationDto.builder().tradeId(4L).grossProfit(BigDecimal.valueOf(10)).costOfGoods(BigDecimal.valueOf(5)).balance(BigDecimal.ONE).build();
+        TradeCriteria criteria = TradeCriteria.builder().buyingAccountId(7L).build();
+
+        doAnswer(invocation -> {
+            Consumer<List<TradeCalculationDto>> consumer = invocation.getArgument(2);
+            consumer.accept(List.of(dto));
+            return null;
+        }).when(tradeCalculationUseCase).streamTradeCalculations(eq(criteria), eq(1), any());
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/dashboards/trade-calculations/stream")
+                        .param("chunkSize", "1").param("buyingAccountId", "7"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        "{\"tradeId\":4,\"grossProfit\":10,\"costOfGoods\":5,\"balance\":1}\n"));
+        verify(tradeCalculationUseCase, never()).streamTradeCalculations(eq(1), any());
+    }
+
+    @Test
+    void streamTradeCalculationsRejectsInvertedTradeIdRange() throws Exception {
+        mockMvc.perform(get("/api/v1/dashboards/trade-calculations/stream").param("fromTradeId", "9").param("toTradeId", "1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamColumnarJson() throws Exception {
+        // Given
+        givenTwoChunks();
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/dashboards/trade-calculations/columnar")
+                        .param("chunkSize", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(
+                        "[{\"tradeId\":[1],\"grossProfit\":[1000],\"costOfGoods\":[1500],\"balance\":[500]},"
+                                + "{\"tradeId\":[2],\"grossProfit\":[1000],\"costOfGoods\":[1250],\"balance\":[-250]}]"));
+    }
+
+    @Test
+    void streamColumnarDefaultsToJsonWithoutAcceptHeader() throws Exception {
+        // Given
+        givenTwoChunks();
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/dashboards/trade-calculations/columnar").param("chunkSize", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(
+                        "[{\"tradeId\":[1],\"grossProfit\":[1000],\"costOfGoods\":[1500],\"balance\":[500]},"
+                                + "{\"tradeId\":[2],\"grossProfit\":[1000],\"costOfGoods\":[1250],\"balance\":[-250]}]"));
+    }
+
+    @Test
+    void streamColumnarDefaultsToJsonForAnyMediaType() throws Exception {
+        // Given
+        givenTwoChunks();
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/dashboards/trade-calculations/columnar")
+                        .param("chunkSize", "1")
+                        .accept(MediaType.ALL))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void streamColumnarCbor() throws Exception {
+        // Given
+        givenTwoChunks();
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/dashboards/trade-calculations/columnar")
+                        .param("chunkSize", "1")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        byte[] body = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode blocks = new CBORMapper().readTree(body);
+        assertEquals(2, blocks.size());
+        assertEquals(2L, blocks.get(1).get("tradeId").get(0).asLong());
+        assertEquals(0, BigDecimal.valueOf(-250).compareTo(blocks.get(1).get("balance").get(0).decimalValue()));
+    }
+
+    @Test
+    void streamColumnarJsonWithCriteria() throws Exception {
+        // Given
+        TradeCalculationDto dto = TradeCalculationDto.builder().tradeId(4L).grossProfit(BigDecimal.valueOf(10)).costOfGoods(BigDecimal.valueOf(5)).balance(BigDecimal.ONE).build();
+        TradeCriteria criteria = TradeCriteria.builder().productName("copper").build();
+
+        doAnswer(invocation -> {
+            Consumer<List<TradeCalculationDto>> consumer = invocation.getArgument(2);
+            consumer.accept(List.of(dto));
+            return null;
+        }).when(tradeCalculationUseCase).streamTradeCalculations(eq(criteria), eq(1), any());
+
+        // When
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/dashboards/trade-calculations/columnar")
+                        .param("chunkSize", "1")
+                        .param("productName", "copper")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        "[{\"tradeId\":[4],\"grossProfit\":[10],\"costOfGoods\":[5],\"balance\":[1]}]"));
+        verify(tradeCalculationUseCase, never()).streamTradeCalculations(eq(1), any());
+    }
+
+    @Test
+    void streamColumnarCborRejectsInvertedTradeIdRange() throws Exception {
+        mockMvc.perform(get("/api/v1/dashboards/trade-calculations/columnar")
+                        .param("fromTradeId", "9").param("toTradeId", "1")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void givenTwoChunks() {
+        TradeCalculationDto dto1 = TradeCalculationDto.builder().tradeId(1L).grossProfit(BigDecimal.valueOf(1000)).costOfGoods(BigDecimal.valueOf(1500)).balance(BigDecimal.valueOf(500)).build();
+        TradeCalculationDto dto2 = TradeCalculationDto.builder().tradeId(2L).grossProfit(BigDecimal.valueOf(1000)).costOfGoods(BigDecimal.valueOf(1250)).balance(BigDecimal.valueOf(-250)).build();
+
+        doAnswer(invocation -> {
+            Consumer<List<TradeCalculationDto>> consumer = invocation.getArgument(1);
+            consumer.accept(List.of(dto1));
+            consumer.accept(List.of(dto2));
+            return null;
+        }).when(tradeCalculationUseCase).streamTradeCalculations(eq(1), any());
+    }
 }
@@ -0,0 +1,73 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.in.web;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs against PostgreSQL because the row version behind the ETag is maintained by a database trigger, so it
+ * also changes when trades are updated outside the application.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class TradeDashboardETagIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void tradeUpdatedOutsideApplicationChangesETag() throws Exception {
+        // Given
+        Long tradeId = jdbcTemplate.queryForObject("""
+                INSERT INTO trades (buying_account_id, vendor_account_id, product_name, product_quantity,
+                    product_buying_price, product_selling_price)
+                VALUES (1, 2, 'Widget', 10, 5.00, 7.00) RETURNING id""", Long.class);
+        String eTag = getTradeCalculations(null).getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+
+        // When
+        jdbcTemplate.update("UPDATE trades SET product_selling_price = 8.00 WHERE id = ?", tradeId);
+
+        // Then
+        MvcResult result = getTradeCalculations(eTag);
+        assertNotEquals(eTag, result.getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
+    private MvcResult getTradeCalculations(String ifNoneMatch) throws Exception {
+        MockHttpServletRequestBuilder builder = get("/api/v1/dashboards/trade-calculations");
+        if (ifNoneMatch != null) {
+            builder.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MvcResult asyncResult = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+}
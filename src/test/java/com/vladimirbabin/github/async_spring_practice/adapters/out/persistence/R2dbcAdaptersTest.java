@@ -0,0 +1,120 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.out.persistence;
+
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import io.r2dbc.spi.ConnectionFactories;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the R2DBC adapters against PostgreSQL without a Spring context, since the reactive profile is not
+ * needed to check their SQL and bindings.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class R2dbcAdaptersTest {
+
+    // Smaller than the number of trades, so the portal is fetched several times
+    private static final int FETCH_SIZE = 2;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private TradeR2dbcAdapter tradeR2dbcAdapter;
+    private PaymentR2dbcAdapter paymentR2dbcAdapter;
+
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .locations("classpath:db/migration", "classpath:db/vendor/postgresql")
+                .load()
+                .migrate();
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+        for (int i = 1; i <= 5; i++) {
+            jdbcTemplate.update("""
+                    INSERT INTO trades (buying_account_id, vendor_account_id, product_name, product_quantity,
+                        product_buying_price, product_selling_price)
+                    VALUES (1, 2, 'Widget', ?, ?, ?)""", i * 3, new BigDecimal("1.25").multiply(BigDecimal.valueOf(i)),
+                    new BigDecimal("1.75").multiply(BigDecimal.valueOf(i)));
+        }
+        insertPayment(1, "BUYER", "10.00");
+        insertPayment(2, "VENDOR", "20.00");
+        insertPayment(2, "BUYER", "30.00");
+        insertPayment(4, "BUYER", "40.00");
+    }
+
+    @BeforeEach
+    void setUp() {
+        DatabaseClient databaseClient = DatabaseClient.create(ConnectionFactories.get(String.format(
+                "r2dbc:postgresql://%s:%s@%s:%d/%s", postgres.getUsername(), postgres.getPassword(),
+                postgres.getHost(), postgres.getFirstMappedPort(), postgres.getDatabaseName())));
+        tradeR2dbcAdapter = new TradeR2dbcAdapter(databaseClient, FETCH_SIZE);
+        paymentR2dbcAdapter = new PaymentR2dbcAdapter(databaseClient);
+    }
+
+    @Test
+    void getAllTradesEmitsTradesOnDemand() {
+        StepVerifier.create(tradeR2dbcAdapter.getAllTrades(), 1)
+                .expectNextMatches(trade -> trade.getId() == 1L)
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextCount(4)
+                .verifyComplete();
+    }
+
+    @Test
+    void getAllTradesMatchesJdbcReadPath() {
+        // Given
+        List<Trade> jdbcTrades = new TradeJdbcAdapter(jdbcTemplate, FETCH_SIZE, true).getAllTrades().join();
+
+        // When
+        List<Trade> r2dbcTrades = tradeR2dbcAdapter.getAllTrades().collectList().block();
+
+        // Then
+        assertEquals(jdbcTrades, r2dbcTrades);
+    }
+
+    @Test
+    void getPaymentsByTradeIdsBindsIdsAsArray() {
+        // When
+        List<Payment> payments = paymentR2dbcAdapter.getPaymentsByTradeIds(List.of(2L, 4L, 99L))
+                .sort(Comparator.comparing(Payment::getId))
+                .collectList()
+                .block();
+
+        // Then
+        assertEquals(List.of(2L, 2L, 4L), payments.stream().map(Payment::getTradeId).toList());
+        assertEquals(List.of(PaymentType.VENDOR, PaymentType.BUYER, PaymentType.BUYER),
+                payments.stream().map(Payment::getType).toList());
+        assertEquals(0, new BigDecimal("20.00").compareTo(payments.get(0).getAmount()));
+    }
+
+    @Test
+    void getPaymentsByTradeIdsWithoutIdsEmitsNothing() {
+        StepVerifier.create(paymentR2dbcAdapter.getPaymentsByTradeIds(List.of()))
+                .verifyComplete();
+    }
+
+    private static void insertPayment(long tradeId, String type, String amount) {
+        jdbcTemplate.update("INSERT INTO payments (trade_id, type, amount, currency, payment_date)"
+                + " VALUES (?, ?, ?, 'USD', CURRENT_DATE)", tradeId, type, new BigDecimal(amount));
+    }
+}
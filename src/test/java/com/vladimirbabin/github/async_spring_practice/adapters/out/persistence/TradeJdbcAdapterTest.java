@@ -0,0 +1,210 @@
+package com.vladimirbabin.github.async_spring_practice.adapters.out.persistence;
+
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.BigDecimalTradeCalculationEngine;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradeCalculator;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradePaymentTotals;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import com.vladimirbabin.github.async_spring_practice.domain.model.TradeCriteria;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Compares the hand-written SQL of the JDBC read path with the JPA read path on PostgreSQL. Not transactional:
+ * the streaming queries roll back their own connection, which would also discard rows inserted by the test.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class TradeJdbcAdapterTest {
+
+    // Smaller than the number of trades, so every read spans several cursor fetches
+    private static final int FETCH_SIZE = 2;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TradeRepository tradeRepository;
+
+    private TradePersistenceAdapter jpaAdapter;
+    private TradeJdbcAdapter jdbcAdapter;
+
+    @BeforeEach
+    void setUp() {
+        jpaAdapter = new TradePersistenceAdapter(tradeRepository);
+        jdbcAdapter = new TradeJdbcAdapter(jdbcTemplate, FETCH_SIZE, true);
+        insertTrade(1, 2, "Widget", 10, "5.00", "7.00");
+        insertTrade(1, 3, "Gadget", 3, "12.50", "11.25");
+        insertTrade(4, 2, "Widget", 7, "0.99", "1.49");
+        insertTrade(4, 3, "Gizmo", 1, "100.00", "150.00");
+        insertTrade(1, 2, "Gizmo", 25, "2.10", "2.35");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("TRUNCATE trades, payments RESTART IDENTITY");
+    }
+
+    @Test
+    void getAllTradesStreamsEveryTradeInIdOrder() {
+        // When
+        List<Trade> trades = jdbcAdapter.getAllTrades().join();
+
+        // Then
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), trades.stream().map(Trade::getId).toList());
+    }
+
+    @Test
+    void getAllTradesPushesProductsDownToDatabase() {
+        // When
+        List<Trade> trades = jdbcAdapter.getAllTrades().join();
+
+        // Then
+        for (Trade trade : trades) {
+            BigDecimal quantity = BigDecimal.valueOf(trade.getProductQuantity());
+            assertEquals(0, quantity.multiply(trade.getProductSellingPrice()).compareTo(trade.getPrecomputedGrossProfit()));
+            assertEquals(0, quantity.multiply(trade.getProductBuyingPrice()).compareTo(trade.getPrecomputedCostOfGoods()));
+        }
+    }
+
+    @Test
+    void getAllTradesLeavesProductsToCalculatorWhenNotPushedDown() {
+        // Given
+        TradeJdbcAdapter adapter = new TradeJdbcAdapter(jdbcTemplate, FETCH_SIZE, false);
+
+        // When
+        List<Trade> trades = adapter.getAllTrades().join();
+
+        // Then
+        assertEquals(5, trades.size());
+        trades.forEach(trade -> {
+            assertNull(trade.getPrecomputedGrossProfit());
+            assertNull(trade.getPrecomputedCostOfGoods());
+        });
+    }
+
+    @Test
+    void calculationsMatchJpaReadPath() {
+        // Given
+        insertPayment(1, "BUYER", "70.00");
+        insertPayment(1, "VENDOR", "50.00");
+        insertPayment(3, "BUYER", "5.00");
+        insertPayment(5, "VENDOR", "52.50");
+        TradePaymentTotals totals = TradePaymentTotals.of(new PaymentPersistenceAdapter(jdbcTemplate, FETCH_SIZE)
+                .getAllPayments().join());
+        TradeCalculator calculator = new TradeCalculator(new BigDecimalTradeCalculationEngine());
+
+        // When
+        List<TradeCalculationDto> jpa = calculator.calculate(jpaAdapter.getAllTrades().join(), totals);
+        List<TradeCalculationDto> pushedDown = calculator.calculate(jdbcAdapter.getAllTrades().join(), totals);
+        List<TradeCalculationDto> notPushedDown = calculator.calculate(
+                new TradeJdbcAdapter(jdbcTemplate, FETCH_SIZE, false).getAllTrades().join(), totals);
+
+        // Then
+        assertEquals(jpa, pushedDown);
+        assertEquals(jpa, notPushedDown);
+    }
+
+    @Test
+    void getTradesAppliesOnlySetCriteriaLikeJpaSpecifications() {
+        // Given
+        List<TradeCriteria> criteria = List.of(
+                TradeCriteria.builder().buyingAccountId(1L).build(),
+                TradeCriteria.builder().vendorAccountId(2L).productName("Widget").build(),
+                TradeCriteria.builder().buyingAccountId(4L).vendorAccountId(3L).build(),
+                TradeCriteria.builder().fromTradeId(2L).toTradeId(4L).build(),
+                TradeCriteria.builder().productName("Nothing").build());
+
+        for (TradeCriteria criterion : criteria) {
+            // When
+            List<Long> jdbcIds = jdbcAdapter.getTrades(criterion).join().stream().map(Trade::getId).toList();
+
+            // Then
+            List<Long> jpaIds = jpaAdapter.getTrades(criterion).join().stream().map(Trade::getId).toList();
+            assertEquals(jpaIds, jdbcIds, criterion.toString());
+        }
+        assertEquals(List.of(1L, 2L, 5L),
+                jdbcAdapter.getTrades(TradeCriteria.builder().buyingAccountId(1L).build()).join().stream()
+                        .map(Trade::getId).toList());
+    }
+
+    @Test
+    void getTradesAfterPagesThroughCriteriaMatches() {
+        // Given
+        TradeCriteria criteria = TradeCriteria.builder().buyingAccountId(1L).build();
+
+        // When
+        List<Trade> firstPage = jdbcAdapter.getTradesAfter(criteria, 0L, 2).join();
+        List<Trade> secondPage = jdbcAdapter.getTradesAfter(criteria, firstPage.get(1).getId(), 2).join();
+
+        // Then
+        assertEquals(List.of(1L, 2L), firstPage.stream().map(Trade::getId).toList());
+        assertEquals(List.of(5L), secondPage.stream().map(Trade::getId).toList());
+        assertEquals(jpaAdapter.getTradesAfter(criteria, 2L, 2).join().stream().map(Trade::getId).toList(),
+                secondPage.stream().map(Trade::getId).toList());
+    }
+
+    @Test
+    void getTradesAfterWithoutCriteriaReturnsNextPage() {
+        // When
+        List<Trade> page = jdbcAdapter.getTradesAfter(2L, 2).join();
+
+        // Then
+        assertEquals(List.of(3L, 4L), page.stream().map(Trade::getId).toList());
+    }
+
+    @Test
+    void getTradesVersionMatchesJpaAndChangesOnUpdate() {
+        // Given
+        long version = jdbcAdapter.getTradesVersion().join();
+        assertEquals(jpaAdapter.getTradesVersion().join(), version);
+
+        // When
+        jdbcTemplate.update("UPDATE trades SET product_selling_price = 8.00 WHERE id = 1");
+
+        // Then
+        long updatedVersion = jdbcAdapter.getTradesVersion().join();
+        assertNotEquals(version, updatedVersion);
+        assertEquals(jpaAdapter.getTradesVersion().join(), updatedVersion);
+    }
+
+    private void insertTrade(long buyingAccountId, long vendorAccountId, String productName, int quantity,
+                             String buyingPrice, String sellingPrice) {
+        jdbcTemplate.update("""
+                        INSERT INTO trades (buying_account_id, vendor_account_id, product_name, product_quantity,
+                            product_buying_price, product_selling_price)
+                        VALUES (?, ?, ?, ?, ?, ?)""",
+                buyingAccountId, vendorAccountId, productName, quantity,
+                new BigDecimal(buyingPrice), new BigDecimal(sellingPrice));
+    }
+
+    private void insertPayment(long tradeId, String type, String amount) {
+        jdbcTemplate.update("INSERT INTO payments (trade_id, type, amount, currency, payment_date)"
+                + " VALUES (?, ?, ?, 'USD', CURRENT_DATE)", tradeId, type, new BigDecimal(amount));
+    }
+}
@@ -0,0 +1,129 @@
+package com.vladimirbabin.github.async_spring_practice.application.service;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.PaymentEventsPort;
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.TradeBalanceSnapshotPort;
+import com.vladimirbabin.github.async_spring_practice.config.TradeCalculationProperties;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import com.vladimirbabin.github.async_spring_practice.domain.model.TradeBalance;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MaterializedBalanceServiceTest {
+
+    @Mock
+    private PaymentEventsPort paymentEventsPort;
+
+    @Mock
+    private TradeBalanceSnapshotPort snapshotPort;
+
+    private MaterializedBalanceService materializedBalanceService;
+
+    @BeforeEach
+    void setUp() {
+        TradeCalculationProperties properties = new TradeCalculationProperties();
+        properties.getBalances().setCatchUpBatchSize(2);
+        materializedBalanceService = new MaterializedBalanceService(paymentEventsPort, snapshotPort, properties);
+    }
+
+    @Test
+    void initializeReplaysPaymentsAfterSnapshot() {
+        // Given
+        when(snapshotPort.loadSnapshot(any())).thenAnswer(invocation -> {
+            Consumer<TradeBalance> consumer = invocation.getArgument(0);
+            consumer.accept(TradeBalance.builder().tradeId(1L).buyerTotal(new BigDecimal("100")).vendorTotal(new BigDecimal("40")).build());
+            return 10L;
+        });
+        when(paymentEventsPort.getPaymentsAfter(10L, 2)).thenReturn(List.of(
+                payment(11L, 1L, PaymentType.VENDOR, "10"), payment(12L, 2L, PaymentType.BUYER, "5")));
+        when(paymentEventsPort.getPaymentsAfter(12L, 2)).thenReturn(List.of(payment(13L, 2L, PaymentType.VENDOR, "8")));
+
+        // When
+        materializedBalanceService.initialize();
+
+        // Then
+        List<Trade> trades = List.of(Trade.builder().id(1L).build(), Trade.builder().id(2L).build());
+        assertEquals(13L, materializedBalanceService.getLastPaymentId());
+        assertEquals(0, new BigDecimal("50").compareTo(materializedBalanceService.totalsFor(trades).balance(1L)));
+        assertEquals(0, new BigDecimal("-3").compareTo(materializedBalanceService.totalsFor(trades).balance(2L)));
+    }
+
+    @Test
+    void catchUpAppliesPaymentCommittedLateWithLowerId() {
+        // Given
+        when(paymentEventsPort.getPaymentsAfter(0L, 2)).thenReturn(List.of(
+                payment(1L, 4L, PaymentType.BUYER, "7"), payment(3L, 4L, PaymentType.BUYER, "5")));
+        when(paymentEventsPort.getPaymentsAfter(3L, 2)).thenReturn(List.of());
+        materializedBalanceService.catchUp();
+        when(paymentEventsPort.getPaymentsAfter(0L, 3)).thenReturn(List.of(payment(1L, 4L, PaymentType.BUYER, "7"),
+                payment(2L, 4L, PaymentType.BUYER, "2"), payment(3L, 4L, PaymentType.BUYER, "5")));
+
+        // When
+        long applied = materializedBalanceService.catchUp();
+        materializedBalanceService.catchUp();
+
+        // Then
+        List<Trade> trades = List.of(Trade.builder().id(4L).build());
+        assertEquals(1, applied);
+        assertEquals(3L, materializedBalanceService.getLastPaymentId());
+        assertEquals(0, new BigDecimal("14").compareTo(materializedBalanceService.totalsFor(trades).balance(4L)));
+        verify(paymentEventsPort, times(1)).getPaymentsAfter(0L, 3);
+    }
+
+    @Test
+    void snapshotStoresChangedBalancesWithWatermark() {
+        // Given
+        when(paymentEventsPort.getPaymentsAfter(0L, 2)).thenReturn(List.of(payment(1L, 4L, PaymentType.BUYER, "7")));
+        when(snapshotPort.saveSnapshot(anyCollection(), anyLong())).thenReturn(true);
+        materializedBalanceService.catchUp();
+
+        // When
+        materializedBalanceService.snapshot();
+        materializedBalanceService.snapshot();
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<TradeBalance>> balances = ArgumentCaptor.forClass(Collection.class);
+        verify(snapshotPort, times(1)).saveSnapshot(balances.capture(), eq(1L));
+        assertEquals(4L, balances.getValue().iterator().next().getTradeId());
+    }
+
+    @Test
+    void snapshotKeepsBalancesChangedWhenNewerSnapshotExists() {
+        // Given
+        when(paymentEventsPort.getPaymentsAfter(0L, 2)).thenReturn(List.of(payment(1L, 4L, PaymentType.BUYER, "7")));
+        when(snapshotPort.saveSnapshot(anyCollection(), eq(1L))).thenReturn(false).thenReturn(true);
+        materializedBalanceService.catchUp();
+
+        // When
+        materializedBalanceService.snapshot();
+        materializedBalanceService.snapshot();
+
+        // Then
+        verify(snapshotPort, times(2)).saveSnapshot(anyCollection(), eq(1L));
+    }
+
+    private static Payment payment(long id, long tradeId, PaymentType type, String amount) {
+        return Payment.builder().id(id).tradeId(tradeId).type(type).amount(new BigDecimal(amount)).build();
+    }
+}
@@ -0,0 +1,150 @@
+package com.vladimirbabin.github.async_spring_practice.application.service;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.GetTradesPort;
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.StreamPaymentsPort;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.BigDecimalTradeCalculationEngine;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.ExternalPaymentSorter;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradeCalculator;
+import com.vladimirbabin.github.async_spring_practice.application.service.resilience.PortGuard;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MergeJoinTradeCalculatorTest {
+
+    @Mock
+    private GetTradesPort getTradesPort;
+
+    @Mock
+    private StreamPaymentsPort streamPaymentsPort;
+
+    @TempDir
+    Path spillDirectory;
+
+    private MergeJoinTradeCalculator mergeJoinTradeCalculator;
+
+    @BeforeEach
+    void setUp() {
+        mergeJoinTradeCalculator = new MergeJoinTradeCalculator(getTradesPort, streamPaymentsPort,
+                new TradeCalculator(new BigDecimalTradeCalculationEngine()), new ExternalPaymentSorter(2, spillDirectory),
+                new PortGuard("trades", 8, Duration.ofSeconds(5)), 1);
+    }
+
+    @Test
+    void mergesSortedPaymentsIntoTradePages() {
+        // Given
+        givenTradePages();
+        givenPayments(true, payment(1L, PaymentType.BUYER, 10), payment(1L, PaymentType.VENDOR, 4),
+                payment(3L, PaymentType.BUYER, 7), payment(9L, PaymentType.BUYER, 100));
+
+        // When
+        List<List<TradeCalculationDto>> chunks = new ArrayList<>();
+        assertTrue(mergeJoinTradeCalculator.tryStreamTradeCalculations(2, chunks::add));
+
+        // Then
+        assertEquals(2, chunks.size());
+        assertBalances(chunks, "6", "0", "7");
+    }
+
+    @Test
+    void sortsUnsortedPaymentsBeforeMerging() {
+        // Given
+        givenTradePages();
+        givenPayments(false, payment(3L, PaymentType.BUYER, 7), payment(1L, PaymentType.BUYER, 10),
+                payment(2L, PaymentType.VENDOR, 5), payment(1L, PaymentType.VENDOR, 4));
+
+        // When
+        List<List<TradeCalculationDto>> chunks = new ArrayList<>();
+        assertTrue(mergeJoinTradeCalculator.tryStreamTradeCalculations(2, chunks::add));
+
+        // Then
+        assertBalances(chunks, "6", "-5", "7");
+    }
+
+    @Test
+    void rejectsSourceThatIsNotSortedAsAdvertised() {
+        // Given
+        when(getTradesPort.getTradesAfter(0L, 2)).thenReturn(CompletableFuture.completedFuture(List.of(trade(1L), trade(2L))));
+        givenPayments(true, payment(2L, PaymentType.BUYER, 1), payment(1L, PaymentType.BUYER, 1));
+
+        // When / Then
+        assertThrows(IllegalStateException.class, () -> mergeJoinTradeCalculator.tryStreamTradeCalculations(2, chunk -> { }));
+    }
+
+    @Test
+    void declinesStreamBeyondMaxConcurrentStreams() {
+        // Given
+        givenTradePages();
+        AtomicBoolean concurrentStreamAccepted = new AtomicBoolean(true);
+        when(streamPaymentsPort.isSortedByTradeId()).thenReturn(true);
+        doAnswer(invocation -> {
+            concurrentStreamAccepted.set(mergeJoinTradeCalculator.tryStreamTradeCalculations(2, chunk -> { }));
+            return null;
+        }).when(streamPaymentsPort).forEachPayment(any());
+
+        // When
+        boolean accepted = mergeJoinTradeCalculator.tryStreamTradeCalculations(2, chunk -> { });
+
+        // Then
+        assertTrue(accepted);
+        assertFalse(concurrentStreamAccepted.get());
+        assertTrue(mergeJoinTradeCalculator.tryStreamTradeCalculations(2, chunk -> { }));
+    }
+
+    private void givenTradePages() {
+        when(getTradesPort.getTradesAfter(0L, 2)).thenReturn(CompletableFuture.completedFuture(List.of(trade(1L), trade(2L))));
+        when(getTradesPort.getTradesAfter(2L, 2)).thenReturn(CompletableFuture.completedFuture(List.of(trade(3L))));
+    }
+
+    private void givenPayments(boolean sorted, Payment... payments) {
+        when(streamPaymentsPort.isSortedByTradeId()).thenReturn(sorted);
+        doAnswer(invocation -> {
+            Consumer<Payment> consumer = invocation.getArgument(0);
+            List.of(payments).forEach(consumer);
+            return null;
+        }).when(streamPaymentsPort).forEachPayment(any());
+    }
+
+    private static void assertBalances(List<List<TradeCalculationDto>> chunks, String... balances) {
+        List<TradeCalculationDto> calculations = chunks.stream().flatMap(List::stream).toList();
+        assertEquals(balances.length, calculations.size());
+        for (int i = 0; i < balances.length; i++) {
+            assertEquals(i + 1L, calculations.get(i).getTradeId());
+            assertEquals(0, new BigDecimal(balances[i]).compareTo(calculations.get(i).getBalance()));
+        }
+    }
+
+    private static Trade trade(long id) {
+        return Trade.builder().id(id).productQuantity(1).productBuyingPrice(BigDecimal.ONE).productSellingPrice(BigDecimal.TEN).build();
+    }
+
+    private static Payment payment(long tradeId, PaymentType type, long amount) {
+        return Payment.builder().tradeId(tradeId).type(type).amount(BigDecimal.valueOf(amount)).paymentDate(LocalDate.now()).build();
+    }
+}
@@ -0,0 +1,46 @@
+package com.vladimirbabin.github.async_spring_practice.application.service;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.SavePaymentsPort;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.PaymentIngestionResultDto;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentIngestionServiceTest {
+
+    @Mock
+    private SavePaymentsPort savePaymentsPort;
+
+    @InjectMocks
+    private PaymentIngestionService paymentIngestionService;
+
+    @Test
+    void reportsRowsAndThroughput() {
+        // Given
+        List<Payment> payments = List.of(
+                Payment.builder().tradeId(1L).type(PaymentType.BUYER).amount(BigDecimal.TEN).currency("USD").paymentDate(LocalDate.now()).build(),
+                Payment.builder().tradeId(1L).type(PaymentType.VENDOR).amount(BigDecimal.ONE).currency("USD").paymentDate(LocalDate.now()).build());
+        when(savePaymentsPort.savePayments(payments)).thenReturn(CompletableFuture.completedFuture(2));
+
+        // When
+        PaymentIngestionResultDto result = paymentIngestionService.ingestPayments(payments).join();
+
+        // Then
+        assertEquals(2, result.getRows());
+        assertTrue(result.getRowsPerSecond() > 0);
+    }
+}
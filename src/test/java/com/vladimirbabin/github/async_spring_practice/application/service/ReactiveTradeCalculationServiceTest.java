@@ -0,0 +1,87 @@
+package com.vladimirbabin.github.async_spring_practice.application.service;
+
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.ReactiveGetPaymentsPort;
+import com.vladimirbabin.github.async_spring_practice.application.ports.out.ReactiveGetTradesPort;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.BigDecimalTradeCalculationEngine;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradeCalculator;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveTradeCalculationServiceTest {
+
+    @Mock
+    private ReactiveGetTradesPort getTradesPort;
+
+    @Mock
+    private ReactiveGetPaymentsPort getPaymentsPort;
+
+    private ReactiveTradeCalculationService reactiveTradeCalculationService;
+
+    @BeforeEach
+    void setUp() {
+        reactiveTradeCalculationService = new ReactiveTradeCalculationService(getTradesPort, getPaymentsPort,
+                new TradeCalculator(new BigDecimalTradeCalculationEngine()));
+    }
+
+    @Test
+    void streamTradeCalculationsJoinsEveryChunkWithItsPayments() {
+        // Given
+        Payment payment = Payment.builder().id(1L).tradeId(3L).type(PaymentType.BUYER).amount(BigDecimal.TEN).paymentDate(LocalDate.now()).build();
+
+        when(getTradesPort.getAllTrades()).thenReturn(Flux.just(trade(1L), trade(2L), trade(3L)));
+        when(getPaymentsPort.getPaymentsByTradeIds(List.of(1L, 2L))).thenReturn(Flux.empty());
+        when(getPaymentsPort.getPaymentsByTradeIds(List.of(3L))).thenReturn(Flux.just(payment));
+
+        // When / Then
+        StepVerifier.create(reactiveTradeCalculationService.streamTradeCalculations(2))
+                .assertNext(calculation -> assertEquals(1L, calculation.getTradeId()))
+                .assertNext(calculation -> assertEquals(2L, calculation.getTradeId()))
+                .assertNext(calculation -> {
+                    assertEquals(3L, calculation.getTradeId());
+                    assertEquals(0, BigDecimal.TEN.compareTo(calculation.getBalance()));
+                })
+                .verifyComplete();
+        verify(getPaymentsPort).getPaymentsByTradeIds(List.of(1L, 2L));
+    }
+
+    @Test
+    void streamTradeCalculationsOnlyPullsTradesOnDemand() {
+        // Given
+        AtomicLong requestedTrades = new AtomicLong();
+        when(getTradesPort.getAllTrades()).thenReturn(Flux.range(1, 1_000)
+                .map(id -> trade(id.longValue()))
+                .doOnRequest(requestedTrades::addAndGet));
+        when(getPaymentsPort.getPaymentsByTradeIds(anyCollection())).thenReturn(Flux.empty());
+
+        // When / Then
+        StepVerifier.create(reactiveTradeCalculationService.streamTradeCalculations(10), 5)
+                .expectNextCount(5)
+                .thenCancel()
+                .verify();
+        assertTrue(requestedTrades.get() <= 50, "requested " + requestedTrades.get() + " trades");
+    }
+
+    private static Trade trade(long id) {
+        return Trade.builder().id(id).productQuantity(1).productBuyingPrice(BigDecimal.ONE).productSellingPrice(BigDecimal.TEN).build();
+    }
+}
@@ -0,0 +1,46 @@
+package com.vladimirbabin.github.async_spring_practice.application.service;
+
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradeCalculator;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradePaymentTotals;
+import com.vladimirbabin.github.async_spring_practice.config.TradeCalculationProperties;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class StartupWarmupTest {
+
+    @Mock
+    private TradeCalculator tradeCalculator;
+
+    @Test
+    void runsCalculationOnUnversionedSyntheticTrades() {
+        // Given
+        TradeCalculationProperties properties = new TradeCalculationProperties();
+        properties.getWarmup().setIterations(3);
+        properties.getWarmup().setTrades(50);
+        StartupWarmup startupWarmup = new StartupWarmup(tradeCalculator, properties);
+
+        // When
+        startupWarmup.run(null);
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Trade>> trades = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<TradePaymentTotals> paymentTotals = ArgumentCaptor.forClass(TradePaymentTotals.class);
+        verify(tradeCalculator, times(3)).calculate(trades.capture(), paymentTotals.capture());
+        assertEquals(50, trades.getValue().size());
+        assertTrue(trades.getValue().stream().allMatch(trade -> trade.getVersion() == null));
+        assertTrue(paymentTotals.getValue().size() <= 50);
+    }
+}
@@ -1,24 +1,52 @@
 package com.vladimirbabin.github.async_spring_practice.application.service;
 
+import com.vladimirbabin.github.async_spring_practice.adapters.out.metrics.MicrometerDashboardMetrics;
 import com.vladimirbabin.github.async_spring_practice.application.ports.out.GetPaymentsPort;
 import com.vladimirbabin.github.async_spring_practice.application.ports.out.GetTradesPort;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.BigDecimalTradeCalculationEngine;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradeCalculator;
+import com.vladimirbabin.github.async_spring_practice.application.service.calculation.TradePaymentTotals;
+import com.vladimirbabin.github.async_spring_practice.application.service.resilience.PortGuard;
+import com.vladimirbabin.github.async_spring_practice.application.service.resilience.PortGuards;
 import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationPageDto;
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationsResultDto;
+import com.vladimirbabin.github.async_spring_practice.domain.model.DataVersionStamp;
 import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
 import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
 import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import com.vladimirbabin.github.async_spring_practice.domain.model.TradeCriteria;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,9 +58,21 @@ class TradeCalculationServiceTest {
     @Mock
     private GetPaymentsPort getPaymentsPort;
 
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
     private TradeCalculationService tradeCalculationService;
 
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tradeCalculationService = new TradeCalculationService(getTradesPort, getPaymentsPort,
+                new TradeCalculator(new BigDecimalTradeCalculationEngine()),
+                new PortGuards(new PortGuard("trades", 4, Duration.ofSeconds(5)),
+                        new PortGuard("payments", 4, Duration.ofMillis(100))),
+                new MicrometerDashboardMetrics(meterRegistry), Optional.empty(), Optional.empty());
+        lenient().when(getTradesPort.getTradesVersion()).thenReturn(CompletableFuture.completedFuture(1L));
+        lenient().when(getPaymentsPort.getPaymentsVersion()).thenReturn(CompletableFuture.completedFuture(1L));
+    }
+
     @Test
     void getTradeCalculations() throws ExecutionException, InterruptedException {
         // Given
@@ -50,10 +90,11 @@ class TradeCalculationServiceTest {
         when(getPaymentsPort.getAllPayments()).thenReturn(CompletableFuture.completedFuture(payments));
 
         // When
-        CompletableFuture<List<TradeCalculationDto>> resultFuture = tradeCalculationService.getTradeCalculations();
-        List<TradeCalculationDto> result = resultFuture.get();
+        CompletableFuture<TradeCalculationsResultDto> resultFuture = tradeCalculationService.getTradeCalculations();
+        List<TradeCalculationDto> result = resultFuture.get().getCalculations();
 
         // Then
+        assertFalse(resultFuture.get().isStale());
         assertEquals(2, result.size());
 
         TradeCalculationDto result1 = result.stream().filter(r -> r.getTradeId() == 1L).findFirst().get();
@@ -66,4 +107,260 @@ class TradeCalculationServiceTest {
         assertEquals(0, new BigDecimal("1250").compareTo(result2.getCostOfGoods()));
         assertEquals(0, new BigDecimal("-250").compareTo(result2.getBalance()));
     }
+
+    @Test
+    void getTradeCalculationsRecordsStageMetrics() {
+        // Given
+        Trade trade = Trade.builder().id(1L).productQuantity(1).productBuyingPrice(BigDecimal.ONE).productSellingPrice(BigDecimal.TEN).build();
+        Payment payment1 = Payment.builder().id(1L).tradeId(1L).type(PaymentType.BUYER).amount(BigDecimal.TEN).paymentDate(LocalDate.now()).build();
+        Payment payment2 = Payment.builder().id(2L).tradeId(1L).type(PaymentType.VENDOR).amount(BigDecimal.ONE).paymentDate(LocalDate.now()).build();
+
+        when(getTradesPort.getAllTrades()).thenReturn(CompletableFuture.completedFuture(List.of(trade)));
+        when(getPaymentsPort.getAllPayments()).thenReturn(CompletableFuture.completedFuture(List.of(payment1, payment2)));
+
+        // When
+        tradeCalculationService.getTradeCalculations().join();
+
+        // Then
+        assertEquals(1, meterRegistry.get("dashboard.port.fetch").tags("port", "trades", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("dashboard.port.fetch").tags("port", "payments", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("dashboard.payments.grouping").timer().count());
+        assertEquals(1, meterRegistry.get("dashboard.calculation").timer().count());
+        assertEquals(1, meterRegistry.get("dashboard.trades.rows").gauge().value());
+        assertEquals(2, meterRegistry.get("dashboard.payments.per.trade").gauge().value());
+    }
+
+    @Test
+    void getTradeCalculationsServesLastGoodResultAsStaleWhenPaymentsTimeOut() {
+        // Given
+        Trade trade = Trade.builder().id(1L).productQuantity(1).productBuyingPrice(BigDecimal.ONE).productSellingPrice(BigDecimal.TEN).build();
+        Payment payment = Payment.builder().id(1L).tradeId(1L).type(PaymentType.BUYER).amount(BigDecimal.TEN).paymentDate(LocalDate.now()).build();
+
+        when(getTradesPort.getAllTrades()).thenReturn(CompletableFuture.completedFuture(List.of(trade)));
+        when(getPaymentsPort.getPaymentsVersion())
+                .thenReturn(CompletableFuture.completedFuture(1L))
+                .thenReturn(CompletableFuture.completedFuture(2L));
+        when(getPaymentsPort.getAllPayments())
+                .thenReturn(CompletableFuture.completedFuture(List.of(payment)))
+                .thenReturn(new CompletableFuture<>());
+        TradeCalculationsResultDto fresh = tradeCalculationService.getTradeCalculations().join();
+
+        // When
+        TradeCalculationsResultDto result = tradeCalculationService.getTradeCalculations().join();
+
+        // Then
+        assertTrue(result.isStale());
+        assertEquals(fresh.getCalculatedAt(), result.getCalculatedAt());
+        assertEquals(0, BigDecimal.TEN.compareTo(result.getCalculations().get(0).getBalance()));
+    }
+
+    @Test
+    void getTradeCalculationsReusesResultWhileDataVersionIsUnchanged() {
+        // Given
+        Trade trade = Trade.builder().id(1L).productQuantity(1).productBuyingPrice(BigDecimal.ONE).productSellingPrice(BigDecimal.TEN).build();
+
+        when(getTradesPort.getAllTrades()).thenReturn(CompletableFuture.completedFuture(List.of(trade)));
+        when(getPaymentsPort.getAllPayments()).thenReturn(CompletableFuture.completedFuture(List.of()));
+        TradeCalculationsResultDto first = tradeCalculationService.getTradeCalculations().join();
+
+        // When
+        TradeCalculationsResultDto second = tradeCalculationService.getTradeCalculations().join();
+
+        // Then
+        assertSame(first, second);
+        assertEquals(DataVersionStamp.of(1L, 1L), second.getDataVersion());
+        verify(getTradesPort, times(1)).getAllTrades();
+    }
+
+    @Test
+    void getDataVersionDistinguishesTradesAndPaymentsVersions() {
+        // Given
+        when(getTradesPort.getTradesVersion()).thenReturn(CompletableFuture.completedFuture(0L));
+        when(getPaymentsPort.getPaymentsVersion()).thenReturn(CompletableFuture.completedFuture(31L));
+        long before = tradeCalculationService.getDataVersion().join();
+
+        // When
+        when(getTradesPort.getTradesVersion()).thenReturn(CompletableFuture.completedFuture(1L));
+        when(getPaymentsPort.getPaymentsVersion()).thenReturn(CompletableFuture.completedFuture(0L));
+        long after = tradeCalculationService.getDataVersion().join();
+
+        // Then
+        assertNotEquals(before, after);
+    }
+
+    @Test
+    void getTradeCalculationsCoalescesConcurrentCalls() {
+        // Given
+        Trade trade = Trade.builder().id(1L).productQuantity(1).productBuyingPrice(BigDecimal.ONE).productSellingPrice(BigDecimal.TEN).build();
+        CompletableFuture<List<Trade>> tradesFuture = new CompletableFuture<>();
+
+        when(getTradesPort.getAllTrades()).thenReturn(tradesFuture);
+        when(getPaymentsPort.getAllPayments()).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        // When
+        CompletableFuture<TradeCalculationsResultDto> first = tradeCalculationService.getTradeCalculations();
+        CompletableFuture<TradeCalculationsResultDto> second = tradeCalculationService.getTradeCalculations();
+        tradesFuture.complete(List.of(trade));
+
+        // Then
+        assertSame(first.join(), second.join());
+        verify(getTradesPort, times(1)).getAllTrades();
+        verify(getPaymentsPort, times(1)).getAllPayments();
+    }
+
+    @Test
+    void getTradeCalculationsServesPartialResultWhenPaymentsTimeOutWithoutSnapshot() {
+        // Given
+        Trade trade = Trade.builder().id(1L).productQuantity(2).productBuyingPrice(BigDecimal.ONE).productSellingPrice(BigDecimal.TEN).build();
+
+        when(getTradesPort.getAllTrades()).thenReturn(CompletableFuture.completedFuture(List.of(trade)));
+        when(getPaymentsPort.getAllPayments()).thenReturn(new CompletableFuture<>());
+
+        // When
+        TradeCalculationsResultDto result = tradeCalculationService.getTradeCalculations().join();
+
+        // Then
+        assertTrue(result.isPartial());
+        assertFalse(result.isStale());
+        TradeCalculationDto calculation = result.getCalculations().get(0);
+        assertEquals(0, new BigDecimal("18").compareTo(calculation.getGrossProfit()));
+        assertNull(calculation.getBalance());
+    }
+
+    @Test
+    void getTradeCalculationsFailsWhenTradesFailWithoutSnapshot() {
+        // Given
+        when(getTradesPort.getAllTrades()).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("db down")));
+        when(getPaymentsPort.getAllPayments()).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        // When
+        CompletableFuture<TradeCalculationsResultDto> resultFuture = tradeCalculationService.getTradeCalculations();
+
+        // Then
+        CompletionException failure = assertThrows(CompletionException.class, resultFuture::join);
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+    }
+
+    @Test
+    void getTradeCalculationsReadsMaterializedBalancesInsteadOfPayments() {
+        // Given
+        Trade trade = Trade.builder().id(1L).productQuantity(1).productBuyingPrice(BigDecimal.ONE).productSellingPrice(BigDecimal.TEN).build();
+        TradePaymentTotals totals = new TradePaymentTotals(1);
+        totals.addTotals(1L, new BigDecimal("30"), new BigDecimal("12"), 99L);
+        MaterializedBalanceService materializedBalanceService = mock(MaterializedBalanceService.class);
+        TradeCalculationService service = new TradeCalculationService(getTradesPort, getPaymentsPort,
+                new TradeCalculator(new BigDecimalTradeCalculationEngine()),
+                new PortGuards(new PortGuard("trades", 4, Duration.ofSeconds(5)),
+                        new PortGuard("payments", 4, Duration.ofMillis(100))),
+                new MicrometerDashboardMetrics(meterRegistry), Optional.empty(), Optional.of(materializedBalanceService));
+
+        when(materializedBalanceService.getLastPaymentId()).thenReturn(42L);
+        when(materializedBalanceService.totalsFor(List.of(trade))).thenReturn(totals);
+        when(getTradesPort.getAllTrades()).thenReturn(CompletableFuture.completedFuture(List.of(trade)));
+
+        // When
+        TradeCalculationsResultDto result = service.getTradeCalculations().join();
+
+        // Then
+        assertEquals(0, new BigDecimal("18").compareTo(result.getCalculations().get(0).getBalance()));
+        assertEquals(DataVersionStamp.of(1L, 42L), result.getDataVersion());
+        verify(getPaymentsPort, never()).getAllPayments();
+        verify(getPaymentsPort, never()).getPaymentsVersion();
+    }
+
+    @Test
+    void getTradeCalculationsPage() {
+        // Given
+        Trade trade3 = Trade.builder().id(3L).productQuantity(2).productBuyingPrice(BigDecimal.valueOf(10)).productSellingPrice(BigDecimal.valueOf(15)).build();
+        Trade trade4 = Trade.builder().id(4L).productQuantity(1).productBuyingPrice(BigDecimal.valueOf(20)).productSellingPrice(BigDecimal.valueOf(25)).build();
+        Payment payment = Payment.builder().id(1L).tradeId(4L).type(PaymentType.BUYER).amount(BigDecimal.valueOf(25)).paymentDate(LocalDate.now()).build();
+
+        when(getTradesPort.getTradesAfter(2L, 2)).thenReturn(CompletableFuture.completedFuture(List.of(trade3, trade4)));
+        when(getPaymentsPort.getPaymentsByTradeIds(List.of(3L, 4L))).thenReturn(CompletableFuture.completedFuture(List.of(payment)));
+
+        // When
+        TradeCalculationPageDto page = tradeCalculationService.getTradeCalculationsPage(2L, 2).join();
+
+        // Then
+        assertEquals(4L, page.getNextAfter());
+        assertEquals(List.of(3L, 4L), page.getCalculations().stream().map(TradeCalculationDto::getTradeId).toList());
+        assertEquals(0, BigDecimal.ZERO.compareTo(page.getCalculations().get(0).getBalance()));
+        assertEquals(0, new BigDecimal("25").compareTo(page.getCalculations().get(1).getBalance()));
+    }
+
+    @Test
+    void getTradeCalculationsWithCriteriaFetchesOnlyPaymentsOfMatchingTrades() {
+        // Given
+        TradeCriteria criteria = TradeCriteria.builder().buyingAccountId(7L).build();
+        Trade trade = Trade.builder().id(5L).buyingAccountId(7L).productQuantity(1).productBuyingPrice(BigDecimal.ONE).productSellingPrice(BigDecimal.TEN).build();
+        Payment payment = Payment.builder().id(1L).tradeId(5L).type(PaymentType.BUYER).amount(BigDecimal.TEN).paymentDate(LocalDate.now()).build();
+
+        when(getTradesPort.getTrades(criteria)).thenReturn(CompletableFuture.completedFuture(List.of(trade)));
+        when(getPaymentsPort.getPaymentsByTradeIds(List.of(5L))).thenReturn(CompletableFuture.completedFuture(List.of(payment)));
+
+        // When
+        List<TradeCalculationDto> result = tradeCalculationService.getTradeCalculations(criteria).join();
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals(0, BigDecimal.TEN.compareTo(result.get(0).getBalance()));
+        verify(getPaymentsPort, never()).getAllPayments();
+    }
+
+    @Test
+    void getTradeCalculationsPageWithCriteriaSkipsPaymentsWhenNothingMatches() {
+        // Given
+        TradeCriteria criteria = TradeCriteria.builder().productName("copper").build();
+
+        when(getTradesPort.getTradesAfter(criteria, 0L, 10)).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        // When
+        TradeCalculationPageDto page = tradeCalculationService.getTradeCalculationsPage(criteria, 0L, 10).join();
+
+        // Then
+        assertTrue(page.getCalculations().isEmpty());
+        assertNull(page.getNextAfter());
+        verify(getPaymentsPort, never()).getPaymentsByTradeIds(anyCollection());
+    }
+
+    @Test
+    void streamTradeCalculationsWalksAllPages() {
+        // Given
+        Trade trade1 = Trade.builder().id(1L).productQuantity(1).productBuyingPrice(BigDecimal.ONE).productSellingPrice(BigDecimal.TEN).build();
+        Trade trade2 = Trade.builder().id(2L).productQuantity(1).productBuyingPrice(BigDecimal.ONE).productSellingPrice(BigDecimal.TEN).build();
+
+        when(getTradesPort.getTradesAfter(0L, 1)).thenReturn(CompletableFuture.completedFuture(List.of(trade1)));
+        when(getTradesPort.getTradesAfter(1L, 1)).thenReturn(CompletableFuture.completedFuture(List.of(trade2)));
+        when(getTradesPort.getTradesAfter(2L, 1)).thenReturn(CompletableFuture.completedFuture(List.of()));
+        when(getPaymentsPort.getPaymentsByTradeIds(anyCollection())).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        // When
+        List<List<TradeCalculationDto>> chunks = new ArrayList<>();
+        tradeCalculationService.streamTradeCalculations(1, chunks::add);
+
+        // Then
+        assertEquals(2, chunks.size());
+        assertEquals(1L, chunks.get(0).get(0).getTradeId());
+        assertEquals(2L, chunks.get(1).get(0).getTradeId());
+    }
+
+    @Test
+    void streamTradeCalculationsWithCriteriaWalksOnlyMatchingPages() {
+        // Given
+        TradeCriteria criteria = TradeCriteria.builder().buyingAccountId(7L).build();
+        Trade trade = Trade.builder().id(5L).buyingAccountId(7L).productQuantity(1).productBuyingPrice(BigDecimal.ONE).productSellingPrice(BigDecimal.TEN).build();
+
+        when(getTradesPort.getTradesAfter(criteria, 0L, 1)).thenReturn(CompletableFuture.completedFuture(List.of(trade)));
+        when(getTradesPort.getTradesAfter(criteria, 5L, 1)).thenReturn(CompletableFuture.completedFuture(List.of()));
+        when(getPaymentsPort.getPaymentsByTradeIds(List.of(5L))).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        // When
+        List<List<TradeCalculationDto>> chunks = new ArrayList<>();
+        tradeCalculationService.streamTradeCalculations(criteria, 1, chunks::add);
+
+        // Then
+        assertEquals(1, chunks.size());
+        assertEquals(5L, chunks.get(0).get(0).getTradeId());
+        verify(getTradesPort, never()).getTradesAfter(0L, 1);
+    }
 }
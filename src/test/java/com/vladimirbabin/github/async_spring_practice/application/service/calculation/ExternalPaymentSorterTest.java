@@ -0,0 +1,93 @@
+package com.vladimirbabin.github.async_spring_practice.application.service.calculation;
+
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExternalPaymentSorterTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    @Test
+    void sortsAcrossSpilledRunsKeepingSourceOrderWithinTrade() throws IOException {
+        // Given
+        List<Payment> payments = randomPayments(1_003);
+        ExternalPaymentSorter sorter = new ExternalPaymentSorter(100, spillDirectory);
+
+        // When
+        List<Payment> sorted = new ArrayList<>();
+        sorter.sort(payments::forEach, sorted::add);
+
+        // Then
+        List<Payment> expected = new ArrayList<>(payments);
+        expected.sort(Comparator.comparingLong(Payment::getTradeId));
+        assertEquals(expected, sorted);
+        try (var files = Files.list(spillDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void sortsInMemoryWhenEverythingFitsIntoOneRun() throws IOException {
+        // Given
+        List<Payment> payments = randomPayments(50);
+        ExternalPaymentSorter sorter = new ExternalPaymentSorter(100, spillDirectory);
+
+        // When
+        List<Payment> sorted = new ArrayList<>();
+        sorter.sort(payments::forEach, sorted::add);
+
+        // Then
+        assertEquals(payments.stream().sorted(Comparator.comparingLong(Payment::getTradeId)).toList(), sorted);
+    }
+
+    @Test
+    void deletesRunWhoseWriteFails() throws IOException {
+        // Given
+        Payment broken = mock(Payment.class);
+        when(broken.getTradeId()).thenReturn(1L);
+        when(broken.getCurrency()).thenThrow(new IllegalStateException("unreadable row"));
+        ExternalPaymentSorter sorter = new ExternalPaymentSorter(1, spillDirectory);
+
+        // When
+        assertThrows(IllegalStateException.class, () -> sorter.sort(consumer -> consumer.accept(broken), payment -> { }));
+
+        // Then
+        try (var files = Files.list(spillDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static List<Payment> randomPayments(int count) {
+        SplittableRandom random = new SplittableRandom(7);
+        List<Payment> payments = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            payments.add(Payment.builder()
+                    .id(id)
+                    .tradeId(random.nextLong(1, 200))
+                    .type(random.nextBoolean() ? PaymentType.BUYER : PaymentType.VENDOR)
+                    .amount(BigDecimal.valueOf(random.nextLong(-1_000_000, 1_000_000), random.nextInt(4)))
+                    .currency("USD")
+                    .paymentDate(LocalDate.of(2024, 1, 1).plusDays(id))
+                    .build());
+        }
+        return payments;
+    }
+}
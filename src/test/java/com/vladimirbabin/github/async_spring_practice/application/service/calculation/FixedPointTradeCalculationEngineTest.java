@@ -0,0 +1,88 @@
+package com.vladimirbabin.github.async_spring_practice.application.service.calculation;
+
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FixedPointTradeCalculationEngineTest {
+
+    private final FixedPointTradeCalculationEngine fixedPointEngine = new FixedPointTradeCalculationEngine();
+    private final BigDecimalTradeCalculationEngine bigDecimalEngine = new BigDecimalTradeCalculationEngine();
+
+    @Test
+    void matchesBigDecimalEngineIncludingScale() {
+        // Given
+        Random random = new Random(7);
+        for (long tradeId = 1; tradeId <= 1_000; tradeId++) {
+            Trade trade = trade(tradeId, random.nextInt(10_000),
+                    BigDecimal.valueOf(random.nextInt(1_000_000), 2), BigDecimal.valueOf(random.nextInt(1_000_000), 2));
+            List<Payment> payments = new ArrayList<>();
+            int paymentCount = random.nextInt(5);
+            for (int i = 0; i < paymentCount; i++) {
+                PaymentType type = random.nextBoolean() ? PaymentType.BUYER : PaymentType.VENDOR;
+                payments.add(payment(tradeId, type, BigDecimal.valueOf(random.nextInt(1_000_000) - 500_000, random.nextInt(4))));
+            }
+
+            TradePaymentTotals totals = TradePaymentTotals.of(payments);
+
+            // When / Then
+            assertEquals(bigDecimalEngine.calculate(trade, totals), fixedPointEngine.calculate(trade, totals));
+        }
+    }
+
+    @Test
+    void handlesTradesWithoutPayments() {
+        Trade trade = trade(1L, 3, new BigDecimal("10.50"), new BigDecimal("12"));
+
+        TradePaymentTotals totals = TradePaymentTotals.of(List.of());
+
+        TradeCalculationDto result = fixedPointEngine.calculate(trade, totals);
+
+        assertEquals(bigDecimalEngine.calculate(trade, totals), result);
+        assertEquals(new BigDecimal("31.50"), result.getGrossProfit());
+        assertEquals(BigDecimal.ZERO, result.getBalance());
+    }
+
+    @Test
+    void fallsBackToBigDecimalOnOverflow() {
+        // Given
+        Trade trade = trade(1L, Integer.MAX_VALUE, new BigDecimal("99999999999999999.99"), new BigDecimal("1.00"));
+        TradePaymentTotals totals = TradePaymentTotals.of(List.of());
+
+        // When
+        TradeCalculationDto result = fixedPointEngine.calculate(trade, totals);
+
+        // Then
+        assertEquals(bigDecimalEngine.calculate(trade, totals), result);
+        assertEquals(new BigDecimal("214748364699999999978525163.53"), result.getGrossProfit());
+    }
+
+    @Test
+    void usesProductsPrecomputedByTheDataSource() {
+        Trade trade = Trade.builder().id(1L).productQuantity(3).productBuyingPrice(new BigDecimal("10.50")).productSellingPrice(new BigDecimal("12.00"))
+                .precomputedGrossProfit(new BigDecimal("31.50")).precomputedCostOfGoods(new BigDecimal("36.00")).build();
+        TradePaymentTotals totals = TradePaymentTotals.of(List.of());
+
+        TradeCalculationDto result = fixedPointEngine.calculate(trade, totals);
+
+        assertEquals(bigDecimalEngine.calculate(trade, totals), result);
+        assertEquals(new BigDecimal("36.00"), result.getCostOfGoods());
+    }
+
+    private static Trade trade(long id, int quantity, BigDecimal buyingPrice, BigDecimal sellingPrice) {
+        return Trade.builder().id(id).productQuantity(quantity).productBuyingPrice(buyingPrice).productSellingPrice(sellingPrice).build();
+    }
+
+    private static Payment payment(long tradeId, PaymentType type, BigDecimal amount) {
+        return Payment.builder().tradeId(tradeId).type(type).amount(amount).build();
+    }
+}
@@ -0,0 +1,67 @@
+package com.vladimirbabin.github.async_spring_practice.application.service.calculation;
+
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import com.vladimirbabin.github.async_spring_practice.domain.model.TradeBalance;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MaterializedBalancesTest {
+
+    @Test
+    void totalsMatchTotalsBuiltFromAllPayments() {
+        // Given
+        Random random = new Random(5);
+        List<Payment> payments = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            PaymentType type = PaymentType.values()[random.nextInt(PaymentType.values().length)];
+            payments.add(payment(i, random.nextInt(500), type, BigDecimal.valueOf(random.nextInt(1_000_000), 2)));
+        }
+        MaterializedBalances balances = new MaterializedBalances();
+
+        // When
+        payments.parallelStream().forEach(balances::apply);
+
+        // Then
+        List<Trade> trades = IntStream.range(0, 600).mapToObj(id -> Trade.builder().id((long) id).build()).toList();
+        TradePaymentTotals materialized = balances.totalsFor(trades);
+        TradePaymentTotals rebuilt = TradePaymentTotals.of(payments);
+        for (Trade trade : trades) {
+            assertEquals(0, rebuilt.balance(trade.getId()).compareTo(materialized.balance(trade.getId())));
+            assertEquals(rebuilt.paymentsVersion(trade.getId()), materialized.paymentsVersion(trade.getId()));
+        }
+    }
+
+    @Test
+    void drainsOnlyTradesChangedSinceLastDrain() {
+        // Given
+        MaterializedBalances balances = new MaterializedBalances();
+        balances.restore(TradeBalance.builder().tradeId(7L).buyerTotal(BigDecimal.TEN).vendorTotal(BigDecimal.ONE).build());
+        balances.apply(payment(1, 1L, PaymentType.BUYER, BigDecimal.TEN));
+        assertEquals(1, balances.drainChanged().size());
+
+        // When
+        balances.apply(payment(2, 7L, PaymentType.VENDOR, BigDecimal.ONE));
+        List<TradeBalance> changed = balances.drainChanged();
+
+        // Then
+        assertEquals(1, changed.size());
+        assertEquals(0, new BigDecimal("2").compareTo(changed.get(0).getVendorTotal()));
+        assertTrue(balances.drainChanged().isEmpty());
+        assertFalse(balances.totalsFor(List.of(Trade.builder().id(3L).build())).contains(3L));
+    }
+
+    private static Payment payment(long id, long tradeId, PaymentType type, BigDecimal amount) {
+        return Payment.builder().id(id).tradeId(tradeId).type(type).amount(amount).build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.vladimirbabin.github.async_spring_practice.application.service.calculation;
+
+import com.vladimirbabin.github.async_spring_practice.domain.dto.TradeCalculationDto;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
+import com.vladimirbabin.github.async_spring_practice.domain.model.Trade;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class TradeCalculatorTest {
+
+    @Test
+    void parallelModeMatchesSequentialAndKeepsTradeOrder() {
+        // Given
+        List<Trade> trades = LongStream.rangeClosed(1, 10_000)
+                .mapToObj(id -> Trade.builder().id(id).productQuantity((int) id % 100)
+                        .productBuyingPrice(BigDecimal.valueOf(id, 2)).productSellingPrice(BigDecimal.valueOf(id * 2, 2)).build())
+                .toList();
+        List<Payment> payments = new ArrayList<>();
+        for (long id = 1; id <= 10_000; id += 3) {
+            payments.add(Payment.builder().tradeId(id).type(PaymentType.BUYER).amount(BigDecimal.valueOf(id)).build());
+        }
+        TradePaymentTotals totals = TradePaymentTotals.of(payments);
+        TradeCalculationEngine engine = new BigDecimalTradeCalculationEngine();
+
+        // When
+        List<TradeCalculationDto> sequential = new TradeCalculator(engine).calculate(trades, totals);
+        List<TradeCalculationDto> parallel;
+        try (TradeCalculator calculator = new TradeCalculator(engine, new ForkJoinPool(4), 1_000, 100)) {
+            parallel = calculator.calculate(trades, totals);
+        }
+
+        // Then
+        assertEquals(sequential, parallel);
+        assertEquals(LongStream.rangeClosed(1, 10_000).boxed().toList(), parallel.stream().map(TradeCalculationDto::getTradeId).toList());
+    }
+
+    @Test
+    void recalculatesOnlyTradesWhoseVersionOrPaymentsChanged() {
+        // Given
+        TradeCalculationCache cache = new TradeCalculationCache(1_000);
+        TradeCalculator calculator = new TradeCalculator(new BigDecimalTradeCalculationEngine(), null, Integer.MAX_VALUE, Integer.MAX_VALUE, cache);
+        Trade trade1 = Trade.builder().id(1L).version(0L).productQuantity(1).productBuyingPrice(BigDecimal.ONE).productSellingPrice(BigDecimal.TEN).build();
+        Trade trade2 = Trade.builder().id(2L).version(0L).productQuantity(1).productBuyingPrice(BigDecimal.ONE).productSellingPrice(BigDecimal.TEN).build();
+        Payment payment = Payment.builder().id(1L).tradeId(2L).type(PaymentType.BUYER).amount(BigDecimal.TEN).build();
+        List<TradeCalculationDto> first = calculator.calculate(List.of(trade1, trade2), TradePaymentTotals.of(List.of()));
+
+        // When
+        Trade updatedTrade1 = Trade.builder().id(1L).version(1L).productQuantity(2).productBuyingPrice(BigDecimal.ONE).productSellingPrice(BigDecimal.TEN).build();
+        List<TradeCalculationDto> second = calculator.calculate(List.of(updatedTrade1, trade2), TradePaymentTotals.of(List.of(payment)));
+        List<TradeCalculationDto> third = calculator.calculate(List.of(updatedTrade1, trade2), TradePaymentTotals.of(List.of(payment)));
+
+        // Then
+        assertEquals(new BigDecimal("2"), second.get(0).getGrossProfit());
+        assertEquals(BigDecimal.TEN, second.get(1).getBalance());
+        assertSame(second.get(0), third.get(0));
+        assertSame(second.get(1), third.get(1));
+        assertEquals(2, cache.getStats().getHits());
+        assertEquals(4, cache.getStats().getMisses());
+        assertEquals(2, first.size());
+    }
+}
@@ -0,0 +1,77 @@
+package com.vladimirbabin.github.async_spring_practice.application.service.calculation;
+
+import com.vladimirbabin.github.async_spring_practice.domain.model.Payment;
+import com.vladimirbabin.github.async_spring_practice.domain.model.PaymentType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class TradePaymentTotalsTest {
+
+    @Test
+    void balanceMatchesGroupingByAndBigDecimalSums() {
+        // Given
+        Random random = new Random(11);
+        List<Payment> payments = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            long tradeId = random.nextInt(10_000) - 5_000;
+            PaymentType type = random.nextBoolean() ? PaymentType.BUYER : PaymentType.VENDOR;
+            payments.add(payment(tradeId, type, BigDecimal.valueOf(random.nextLong() % 1_000_000_000L, random.nextInt(5))));
+        }
+
+        // When
+        TradePaymentTotals totals = TradePaymentTotals.of(payments);
+
+        // Then
+        Map<Long, List<Payment>> paymentsByTradeId = payments.stream().collect(Collectors.groupingBy(Payment::getTradeId));
+        assertEquals(paymentsByTradeId.size(), totals.size());
+        paymentsByTradeId.forEach((tradeId, tradePayments) ->
+                assertEquals(sum(tradePayments, PaymentType.BUYER).subtract(sum(tradePayments, PaymentType.VENDOR)), totals.balance(tradeId)));
+    }
+
+    @Test
+    void returnsZeroForTradesWithoutPayments() {
+        TradePaymentTotals totals = TradePaymentTotals.of(List.of(payment(Long.MIN_VALUE, PaymentType.BUYER, BigDecimal.ONE)));
+
+        assertFalse(totals.contains(0L));
+        assertEquals(BigDecimal.ZERO, totals.balance(0L));
+        assertEquals(BigDecimal.ONE, totals.balance(Long.MIN_VALUE));
+    }
+
+    @Test
+    void switchesToBigDecimalOnOverflow() {
+        // Given
+        List<Payment> payments = List.of(
+                payment(1L, PaymentType.BUYER, BigDecimal.valueOf(Long.MAX_VALUE, 2)),
+                payment(1L, PaymentType.BUYER, BigDecimal.valueOf(Long.MAX_VALUE, 2)),
+                payment(1L, PaymentType.VENDOR, new BigDecimal("0.001")),
+                payment(2L, PaymentType.BUYER, BigDecimal.valueOf(Long.MAX_VALUE)),
+                payment(2L, PaymentType.VENDOR, BigDecimal.valueOf(Long.MIN_VALUE)));
+
+        // When
+        TradePaymentTotals totals = TradePaymentTotals.of(payments);
+
+        // Then
+        assertEquals(new BigDecimal("184467440737095516.139"), totals.balance(1L));
+        assertEquals(new BigDecimal("18446744073709551615"), totals.balance(2L));
+    }
+
+    private static BigDecimal sum(List<Payment> payments, PaymentType type) {
+        return payments.stream()
+                .filter(p -> p.getType() == type)
+                .map(Payment::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private static Payment payment(long tradeId, PaymentType type, BigDecimal amount) {
+        return Payment.builder().tradeId(tradeId).type(type).amount(amount).build();
+    }
+}
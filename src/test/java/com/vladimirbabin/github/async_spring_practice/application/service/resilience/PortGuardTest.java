@@ -0,0 +1,69 @@
+package com.vladimirbabin.github.async_spring_practice.application.service.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PortGuardTest {
+
+    @Test
+    void rejectsCallsBeyondMaxConcurrentCalls() {
+        // Given
+        PortGuard guard = new PortGuard("trades", 1, Duration.ofSeconds(5));
+        CompletableFuture<String> inFlight = new CompletableFuture<>();
+        guard.call(() -> inFlight);
+
+        // When
+        CompletableFuture<String> rejected = guard.call(() -> CompletableFuture.completedFuture("ok"));
+
+        // Then
+        CompletionException failure = assertThrows(CompletionException.class, rejected::join);
+        assertInstanceOf(BulkheadFullException.class, failure.getCause());
+
+        inFlight.complete("done");
+        assertEquals("ok", guard.call(() -> CompletableFuture.completedFuture("ok")).join());
+    }
+
+    @Test
+    void timedOutCallKeepsPermitUntilUnderlyingWorkCompletes() {
+        // Given
+        PortGuard guard = new PortGuard("payments", 1, Duration.ofMillis(20));
+        CompletableFuture<String> slow = new CompletableFuture<>();
+
+        // When
+        CompletableFuture<String> result = guard.call(() -> slow);
+
+        // Then
+        CompletionException failure = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(TimeoutException.class, failure.getCause());
+        assertEquals(0, guard.getAvailablePermits());
+
+        slow.complete("late");
+        assertEquals(1, guard.getAvailablePermits());
+    }
+
+    @Test
+    void nonPositiveMaxConcurrentCallsDisablesBulkheadButKeepsDeadline() {
+        // Given
+        PortGuard guard = new PortGuard("trades", 0, Duration.ofMillis(20));
+        for (int i = 0; i < 100; i++) {
+            guard.call(CompletableFuture::new);
+        }
+
+        // When
+        CompletableFuture<String> accepted = guard.call(() -> CompletableFuture.completedFuture("ok"));
+        CompletableFuture<String> slow = guard.call(CompletableFuture::new);
+
+        // Then
+        assertEquals("ok", accepted.join());
+        CompletionException failure = assertThrows(CompletionException.class, slow::join);
+        assertInstanceOf(TimeoutException.class, failure.getCause());
+    }
+}
@@ -0,0 +1,86 @@
+package com.vladimirbabin.github.async_spring_practice.application.service.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallersShareOneCall() {
+        // Given
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        // When
+        CompletableFuture<String> first = singleFlight.execute(() -> {
+            calls.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<String> second = singleFlight.execute(() -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        pending.complete("shared");
+
+        // Then
+        assertEquals(1, calls.get());
+        assertEquals("shared", first.join());
+        assertEquals("shared", second.join());
+    }
+
+    @Test
+    void callAfterCompletionStartsFreshCall() {
+        // Given
+        SingleFlight<Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        singleFlight.execute(() -> CompletableFuture.completedFuture(calls.incrementAndGet())).join();
+        int second = singleFlight.execute(() -> CompletableFuture.completedFuture(calls.incrementAndGet())).join();
+
+        // Then
+        assertEquals(2, second);
+    }
+
+    @Test
+    void cancellingOneCallerDoesNotAffectOthers() {
+        // Given
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> first = singleFlight.execute(() -> pending);
+        CompletableFuture<String> second = singleFlight.execute(() -> pending);
+
+        // When
+        first.cancel(true);
+        pending.complete("value");
+
+        // Then
+        assertFalse(pending.isCancelled());
+        assertEquals("value", second.join());
+    }
+
+    @Test
+    void failurePropagatesToAllCallersAndClearsSlot() {
+        // Given
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> first = singleFlight.execute(() -> pending);
+        CompletableFuture<String> second = singleFlight.execute(() -> pending);
+
+        // When
+        pending.completeExceptionally(new IllegalStateException("down"));
+
+        // Then
+        assertThrows(CompletionException.class, first::join);
+        assertThrows(CompletionException.class, second::join);
+        assertEquals("ok", singleFlight.execute(() -> CompletableFuture.completedFuture("ok")).join());
+    }
+}
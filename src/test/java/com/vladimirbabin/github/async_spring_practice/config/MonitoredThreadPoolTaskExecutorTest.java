@@ -0,0 +1,79 @@
+package com.vladimirbabin.github.async_spring_practice.config;
+
+import com.vladimirbabin.github.async_spring_practice.domain.dto.ExecutorStatsDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MonitoredThreadPoolTaskExecutorTest {
+
+    private MonitoredThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new MonitoredThreadPoolTaskExecutor();
+        executor.setBeanName("testExecutor");
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("test-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void reportsBlockedThreadsQueueDepthAndRejections() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> running = executor.submit(() -> await(release));
+        Future<?> queued = executor.submit(() -> await(release));
+        assertThrows(TaskRejectedException.class, () -> executor.submit(() -> { }));
+        waitUntilBlocked();
+
+        // When
+        ExecutorStatsDto stats = executor.getStats();
+
+        // Then
+        assertEquals("testExecutor", stats.getName());
+        assertEquals(1, stats.getPoolSize());
+        assertEquals(0, stats.getActiveThreads());
+        assertEquals(1, stats.getBlockedThreads());
+        assertEquals(0, stats.getIdleThreads());
+        assertEquals(1, stats.getQueueDepth());
+        assertEquals(1, stats.getRejectedTasks());
+        assertEquals("test-1", stats.getThreads().get(0).getName());
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+    }
+
+    private void waitUntilBlocked() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getStats().getBlockedThreads() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.vladimirbabin.github.async_spring_practice.config;
+
+import com.vladimirbabin.github.async_spring_practice.application.service.resilience.PortGuard;
+import com.vladimirbabin.github.async_spring_practice.application.service.resilience.PortGuards;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class VirtualProfileConfigTest {
+
+    @Test
+    void portGuardsLetHikariPoolBeTheConcurrencyLimit() throws IOException {
+        // Given
+        Binder binder = profileBinder("application-virtual.yml", "application.yml");
+        int maximumPoolSize = binder.bind("spring.datasource.hikari.maximum-pool-size", Integer.class).get();
+        TradeCalculationProperties properties = binder.bind("trade-calculation", TradeCalculationProperties.class).get();
+
+        // When
+        PortGuards portGuards = new TradeCalculationConfig().portGuards(properties);
+
+        // Then
+        assertAcceptsConcurrentCalls(portGuards.getTrades(), maximumPoolSize + 1);
+        assertAcceptsConcurrentCalls(portGuards.getPayments(), maximumPoolSize + 1);
+    }
+
+    private static void assertAcceptsConcurrentCalls(PortGuard guard, int calls) {
+        List<CompletableFuture<String>> inFlight = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            inFlight.add(guard.call(CompletableFuture::new));
+        }
+        for (CompletableFuture<String> call : inFlight) {
+            assertFalse(call.isCompletedExceptionally());
+        }
+    }
+
+    // Highest precedence first, like an active profile over the default configuration
+    private static Binder profileBinder(String... locations) throws IOException {
+        YamlPropertySourceLoader loader = new YamlPropertySourceLoader();
+        MutablePropertySources sources = new MutablePropertySources();
+        for (String location : locations) {
+            loader.load(location, new ClassPathResource(location)).forEach(sources::addLast);
+        }
+        return new Binder(ConfigurationPropertySources.from(sources));
+    }
+}